@@ -4,10 +4,26 @@
 package com._2048;
 
 // JavaFX and other necessary imports
+import com.ai.HintEngine;
+import com.ai.OpeningBook;
+import com.engine.Board;
+import com.event.AsyncSubscriber;
+import com.event.EventBus;
+import com.event.GameEvent;
+import com.ipc.SharedMemoryChannel;
+import com.ipc.WaitStrategy;
+import com.metrics.Counter;
+import com.metrics.Histogram;
+import com.metrics.JvmMetrics;
+import com.metrics.MetricsRegistry;
+import com.metrics.MetricsServer;
+import com.record.GameRecorder;
+import com.socket.BroadcastStats;
 import com.socket.GameStateServer;
+import com.socket.WebSocketServer;
 import com.state.GameState;
 import javafx.application.Application;
-import javafx.concurrent.Task;
+import javafx.application.Platform;
 import javafx.event.EventHandler;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -16,22 +32,27 @@ import javafx.scene.control.ScrollPane;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.*;
 import javafx.stage.Stage;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.concurrent.*;
-
-
-import java.beans.PropertyChangeEvent;
-import java.beans.PropertyChangeListener;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
 
 /**
  * The main Controller class for the 2048 game application.
  * Implements Application for JavaFX integration and
- * PropertyChangeListener for game state updates.
+ * subscribes to the game's events for game state updates.
  */
-public class Controller extends Application implements PropertyChangeListener {
+public class Controller extends Application {
 
-    // A small, fixed pool for broadcasting game state
-    private static final ExecutorService BROADCAST_POOL =
-            Executors.newFixedThreadPool(2);
+    // A small, fixed pool for broadcasting game state; a ThreadPoolExecutor so its queue can be measured
+    private static final ThreadPoolExecutor BROADCAST_POOL =
+            new ThreadPoolExecutor(2, 2, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+    // The most game states waiting to be broadcast before new ones are dropped
+    private static final int BROADCAST_QUEUE = 64;
 
     // Static UI elements
     private final static ScrollPane scroll = new ScrollPane();
@@ -39,11 +60,45 @@ public class Controller extends Application implements PropertyChangeListener {
     private static Game game;
     private static UI ui;
     private GameStateServer gameServer;
+    private WebSocketServer webSocketServer;
+    private GameRecorder recorder;
+    private SharedMemoryChannel agentChannel;
+    private Thread agentCommandReader;
+    private HintEngine hintEngine;
+    private MetricsRegistry metrics;
+    private MetricsServer metricsServer;
+    private Counter movesMade; // Null when metrics are off
+    private Histogram moveLatency;
     private StackPane windowStack;
+    // The packed board and score the next recorded transition starts from
+    private long boardBeforeMove;
+    private int scoreBeforeMove;
 
     // Other statics/constants
     private static String windowTitle = "2048 FX";
     private static int port = 5999;
+    private static int boardSize = Game.BOARD_SIZE;
+    private static long moveStart; // When the key press or agent command being played arrived; JavaFX thread only
+    // Directory to record played transitions into; recording is off when unset
+    private static final String recordDir = System.getProperty("_2048.recordDir");
+    private static final long RECORD_FILE_BYTES = 64L * 1024 * 1024;
+    private static final int RECORD_MAX_FILES = 32;
+    // Port to serve browser spectators on over WebSocket; the endpoint is off when unset
+    private static final Integer webSocketPort = Integer.getInteger("_2048.websocketPort");
+    // States before the current one replayed to spectators when they connect
+    private static final int replayFrames = Integer.getInteger("_2048.replayFrames", 0);
+    // File shared with a co-located agent process (see com.ipc.IpcAgent); the channel is off when unset
+    private static final String ipcFile = System.getProperty("_2048.ipcFile");
+    // Whether to spin rather than park while waiting for agent commands
+    private static final boolean ipcSpin = Boolean.getBoolean("_2048.ipcSpin");
+    // Whether to print the time to first frame and exit, for measuring startup (and for building the CDS archive)
+    private static final boolean startupBenchmark = Boolean.getBoolean("_2048.startupBenchmark");
+    // Port to serve Prometheus metrics on, on the loopback address; metrics are off when unset
+    private static final Integer metricsPort = Integer.getInteger("_2048.metricsPort");
+    // Whether to analyse each position in the background and highlight the suggested move
+    private static final boolean hints = Boolean.getBoolean("_2048.hints");
+    // Opening book the hints are looked up in before searching (see com.ai.OpeningBookGenerator); none when unset
+    private static final String openingBookFile = System.getProperty("_2048.openingBook");
 
     public static Game getGame(){ return game; }
     public static ScrollPane getScrollPane(){ return scroll; }
@@ -54,6 +109,7 @@ public class Controller extends Application implements PropertyChangeListener {
      * Event handler for keyboard input to control game movements.
      */
     private static final EventHandler<KeyEvent> keyEventHandler = keyEvent -> {
+        moveStart = System.nanoTime();      // the move latency includes the slide and merge pass below
         switch (keyEvent.getCode()) {
             case UP, W, KP_UP:
                 Controller.getGame().moveVertical(0, "up");
@@ -77,7 +133,7 @@ public class Controller extends Application implements PropertyChangeListener {
     /**
      * Main method to launch the JavaFX application.
      *
-     * @param args Command-line arguments (unused).
+     * @param args Command-line arguments: port, window title and board size (all optional).
      */
     public static void main(String[] args) {
         if (args.length >= 1){
@@ -86,19 +142,59 @@ public class Controller extends Application implements PropertyChangeListener {
         if (args.length >= 2){
             windowTitle = args[1];
         }
+        if (args.length >= 3){
+            boardSize = Integer.parseInt(args[2]);
+        }
         Application.launch(args);
     }
 
     /**
-     * Initialization method to create a new Game instance and register as a property change listener.
+     * Initialization method to create a new Game instance and subscribe to its events.
      */
     @Override
     public void init() {
-        game = new Game();
-        game.addPropertyChangeListener(this);
+        game = new Game(boardSize);
         ui = new UI();
         gameServer = new GameStateServer();
+        gameServer.setReplayFrames(replayFrames);
         gameServer.start(port);
+        if (webSocketPort != null) {
+            webSocketServer = new WebSocketServer();
+            webSocketServer.setReplayFrames(replayFrames);
+            webSocketServer.start(webSocketPort);
+        }
+        subscribe(game.getEventBus());
+        // Transitions are stored as packed 4x4 boards, so only the default board size is recorded
+        if (recordDir != null && boardSize == Game.BOARD_SIZE) {
+            try {
+                recorder = new GameRecorder(Path.of(recordDir), RECORD_FILE_BYTES, RECORD_MAX_FILES);
+            } catch (IOException e) {
+                System.err.println("Error starting recorder: " + e.getMessage());
+            }
+        }
+        // States are shared as packed boards, so only boards of up to 4x4 can be played by an agent
+        if (ipcFile != null && boardSize <= Game.BOARD_SIZE) {
+            try {
+                agentChannel = SharedMemoryChannel.create(Path.of(ipcFile), SharedMemoryChannel.DEFAULT_SLOTS);
+                agentCommandReader = new Thread(this::readAgentCommands, "ipc-commands");
+                agentCommandReader.setDaemon(true);
+                agentCommandReader.start();
+            } catch (IOException e) {
+                System.err.println("Error opening agent channel: " + e.getMessage());
+            }
+        }
+        // The search works on packed 4x4 boards
+        if (hints && boardSize == Game.BOARD_SIZE) {
+            OpeningBook book = null;
+            if (openingBookFile != null) {
+                try {
+                    book = OpeningBook.load(Path.of(openingBookFile));
+                } catch (IOException e) {
+                    System.err.println("Error loading opening book: " + e.getMessage());
+                }
+            }
+            hintEngine = new HintEngine(book, (board, move, depth) -> Platform.runLater(() -> onHint(board, move)));
+        }
     }
 
     /**
@@ -127,12 +223,10 @@ public class Controller extends Application implements PropertyChangeListener {
         topAndGrid.getChildren().addAll(top, windowStack);
         topAndGrid.setAlignment(Pos.CENTER);
 
-        // Creating the how-to-play section
-        VBox howToPlay = ui.createHowToPlay();
-
-        // Adding the sections together in a vbox
+        // Adding the sections together in a vbox; the how-to-play section is below the fold,
+        // so it is built once the first frame is up (see onFirstFrame)
         VBox content = new VBox();
-        content.getChildren().addAll(topAndGrid, howToPlay);
+        content.getChildren().addAll(topAndGrid);
 
         // Adding the main and how-to-play sections to a scrollable pane
         scroll.setFitToWidth(true);
@@ -167,17 +261,49 @@ public class Controller extends Application implements PropertyChangeListener {
 
         // Scene and stage settings
         scene = new Scene(scroll);
-        scene.getStylesheets().add("file:src/main/resources/styles.css");
+        // Loaded from the module rather than the working directory, so the game starts from anywhere
+        URL styles = Controller.class.getResource("/styles.css");
+        if (styles != null)
+            scene.getStylesheets().add(styles.toExternalForm());
+        else
+            System.err.println("Stylesheet styles.css not found");
         scene.setOnKeyPressed(keyEventHandler);
+        scene.addPostLayoutPulseListener(new Runnable() {
+            @Override
+            public void run() {
+                scene.removePostLayoutPulseListener(this);
+                Platform.runLater(() -> onFirstFrame(content));
+            }
+        });
         stage.setScene(scene);
         stage.setHeight(800);
         stage.setWidth(550);
         stage.setResizable(false);
         stage.setTitle(windowTitle);
         stage.show();
+        if (metricsPort != null)
+            startMetrics();
         game.newGame();
     }
 
+    /**
+     * Finishes the parts of the window that are not visible at first, once the first frame
+     * has been laid out, and reports the time to first frame if asked to.
+     *
+     * @param content The container the how-to-play section goes below the game in.
+     */
+    private void onFirstFrame(VBox content) {
+        if (startupBenchmark) {
+            // From the JVM starting, so class loading and module resolution are included
+            long millis = ProcessHandle.current().info().startInstant()
+                    .map(start -> Duration.between(start, Instant.now()).toMillis()).orElse(-1L);
+            System.out.println("Time to first frame: " + millis + " ms");
+            Platform.exit();
+            return;
+        }
+        content.getChildren().add(ui.createHowToPlay());
+    }
+
     /**
      * Ensures resources are closed and cleaned up when the program is stopped
      */
@@ -186,6 +312,29 @@ public class Controller extends Application implements PropertyChangeListener {
         if (gameServer != null) {
             gameServer.stop();
         }
+        if (webSocketServer != null) {
+            webSocketServer.stop();
+        }
+        if (recorder != null) {
+            recorder.close();
+        }
+        if (hintEngine != null) {
+            hintEngine.close();
+        }
+        if (metricsServer != null) {
+            metricsServer.stop();
+        }
+        if (agentChannel != null) {
+            agentCommandReader.interrupt();
+            try {
+                agentCommandReader.join(1000);
+                agentChannel.close();
+            } catch (IOException e) {
+                System.err.println("Error closing agent channel: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
         BROADCAST_POOL.shutdown();  // no new tasks accepted
         try {
             if (!BROADCAST_POOL.awaitTermination(5, TimeUnit.SECONDS)) {
@@ -198,115 +347,274 @@ public class Controller extends Application implements PropertyChangeListener {
     }
 
     /**
-     * Handles property change events from the game.
+     * Subscribes the UI, recorder and socket server to the game's events.
      *
-     * @param event PropertyChangeEvent containing event details.
+     * @param bus The game's event bus.
      */
-    @Override
-    public void propertyChange(PropertyChangeEvent event) {
-        // boolean flags for animation speed
-        boolean newGameQuick = true, moveQuick = true;
-        // Switch statement regarding the contents of the event change
-        switch (event.getPropertyName()) {
-            // If a "newGame" event is called, reset and start a new game
-            case "newGame":
-                scene.setOnKeyPressed(keyEventHandler);
-                windowStack.getChildren().set(1, new Label());
-                ui.updateTiles(newGameQuick, null);
-                broadcastCurrentGameState();    // broadcast the current game state to the socket connection
-                break;
-            // If an "up" event is called, try to move the tiles up and generate a new one
-            case "up":
-                game.setOldScore(game.getNewScore());
-                if ((int) event.getOldValue() == -1) {
-                    game.moveVertical(1, "up");
-                    broadcastCurrentGameState();    // broadcast the current game state to the socket connection
-                }
-                if ((int) event.getNewValue() == 1) {
-                    game.generateTile(game.getDebug());
-                }
-                ui.updateTiles(moveQuick, "up");
-                game.checkForWin();
-                break;
-            // If a "right" event is called, try to move the tiles right and generate a new one
-            case "right":
-                game.setOldScore(game.getNewScore());
-                if ((int) event.getOldValue() == -1) {
-                    game.moveHorizontal(1, "right");
-                    broadcastCurrentGameState();    // broadcast the current game state to the socket connection
-                }
-                if ((int) event.getNewValue() == 1)
-                    game.generateTile(game.getDebug());
-                ui.updateTiles(moveQuick, "right");
-                game.checkForWin();
-                break;
-            // If a "down" event is called, try to move the tiles down and generate a new one
-            case "down":
-                game.setOldScore(game.getNewScore());
-                if ((int) event.getOldValue() == -1) {
-                    game.moveVertical(1, "down");
-                    broadcastCurrentGameState();    // broadcast the current game state to the socket connection
-                }
-                if ((int) event.getNewValue() == 1)
-                    game.generateTile(game.getDebug());
-                ui.updateTiles(moveQuick, "down");
-                game.checkForWin();
-                break;
-            // If a "left" event is called, try to move the tiles left and generate a new one
-            case "left":
-                game.setOldScore(game.getNewScore());
-                if ((int) event.getOldValue() == -1) {
-                    game.moveHorizontal(1, "left");
-                    broadcastCurrentGameState();    // broadcast the current game state to the socket connection
-                }
-                if ((int) event.getNewValue() == 1)
-                    game.generateTile(game.getDebug());
-                ui.updateTiles(moveQuick, "left");
-                game.checkForWin();
-                break;
-            // If a "score" event is called, update the score
-            case "score":
-                ui.updateScore();
-                break;
-            // If a "won game" event is called, display the "game won" screen and disable key presses
-            case "won game":
-                scene.setOnKeyPressed(null);
-                windowStack.getChildren().set(1, ui.createWinScreen());
-                ui.playAnimatedWinOrLoseScreen((StackPane) windowStack.getChildren().get(1));
-                break;
-            // If a "continue" event is called, resume the game and re-enable key presses
-            case "continue":
-                scene.setOnKeyPressed(keyEventHandler);
-                windowStack.getChildren().set(1, new Label());
-                break;
-            // If a "game over" event is called, display the "game over" screen and disable key presses
-            case "game over":
-                scene.setOnKeyPressed(null);
-                windowStack.getChildren().set(1, ui.createGameOverScreen());
-                ui.playAnimatedWinOrLoseScreen((StackPane) windowStack.getChildren().get(1));
-                break;
+    private void subscribe(EventBus bus) {
+        bus.subscribe(GameEvent.NewGame.class, event -> onNewGame());
+        bus.subscribe(GameEvent.Moved.class, this::onMoved);
+        bus.subscribe(GameEvent.MoveFinished.class, this::onMoveFinished);
+        bus.subscribe(GameEvent.ScoreChanged.class, event -> ui.updateScore());
+        bus.subscribe(GameEvent.GameWon.class, event -> showEndScreen(ui.createWinScreen()));
+        bus.subscribe(GameEvent.GameContinued.class, event -> {
+            // Resume the game and re-enable key presses
+            scene.setOnKeyPressed(keyEventHandler);
+            windowStack.getChildren().set(1, new Label());
+        });
+        bus.subscribe(GameEvent.GameOver.class, event -> showEndScreen(ui.createGameOverScreen()));
+        // The socket servers are slow next to the UI, so they get their own threads and queues;
+        // a burst drops the oldest snapshots, so spectators always end on the latest state
+        bus.subscribeAsync(GameEvent.StateSnapshot.class, event -> gameServer.broadcastGameState(event.state()),
+                BROADCAST_POOL, BROADCAST_QUEUE, true);
+        if (webSocketServer != null)
+            bus.subscribeAsync(GameEvent.StateSnapshot.class, event -> webSocketServer.broadcastGameState(event.state()),
+                    BROADCAST_POOL, BROADCAST_QUEUE, true);
+    }
+
+    /**
+     * Resets the board for a new game.
+     */
+    private void onNewGame() {
+        scene.setOnKeyPressed(keyEventHandler);
+        windowStack.getChildren().set(1, new Label());
+        ui.updateTiles(true, null);
+        broadcastCurrentGameState();    // broadcast the current game state to the socket connection
+        analysePosition();
+        if (recorder != null) {
+            boardBeforeMove = game.getPackedBoard();
+            scoreBeforeMove = game.getNewScore();
         }
     }
 
     /**
-     * Broadcasts the current game state on a background thread to the gameServer socket
+     * Finishes a move: makes the final pass, generates a new tile if the board changed,
+     * and updates the tiles.
+     *
+     * @param event The move that was made.
      */
-    private void broadcastCurrentGameState() {
-        Task<Void> task = new Task<>() {
-            @Override
-            protected Void call() {
-                GameState currentState = new GameState(
-                        game.getNewScore(),
-                        game.getBestScore(),
-                        game.getGameOver(),
-                        game.getGameWon(),
-                        game.getIntBoard()
-                );
-                gameServer.broadcastGameState(currentState);
-                return null;
+    private void onMoved(GameEvent.Moved event) {
+        if (hintEngine != null) {
+            hintEngine.cancel();    // the hint was for the position before this move
+            ui.showHint(-1);
+        }
+        String direction = Board.moveName(event.direction());
+        game.setOldScore(game.getNewScore());
+        if (direction.equals("up") || direction.equals("down"))
+            game.moveVertical(1, direction);
+        else
+            game.moveHorizontal(1, direction);
+        if (event.changed()) {
+            game.generateTile(game.getDebug());
+            recordMove(event.direction());     // record the transition alongside the broadcast
+        }
+        broadcastCurrentGameState();    // broadcast the current game state to the socket connection
+        analysePosition();      // runs while the tiles are animating
+        ui.updateTiles(true, direction);
+        game.checkForWin();
+        if (movesMade != null && event.changed()) {
+            movesMade.increment();
+            moveLatency.recordSince(moveStart);
+        }
+    }
+
+    /**
+     * Updates the tiles once the final pass of a move has been made.
+     *
+     * @param event The move that was finished.
+     */
+    private void onMoveFinished(GameEvent.MoveFinished event) {
+        game.setOldScore(game.getNewScore());
+        ui.updateTiles(true, Board.moveName(event.direction()));
+        game.checkForWin();
+    }
+
+    /**
+     * Displays the "game won" or "game over" screen and disables key presses.
+     *
+     * @param screen The screen to display over the grid.
+     */
+    private void showEndScreen(StackPane screen) {
+        if (hintEngine != null) {
+            hintEngine.cancel();
+            ui.showHint(-1);
+        }
+        scene.setOnKeyPressed(null);
+        windowStack.getChildren().set(1, screen);
+        ui.playAnimatedWinOrLoseScreen((StackPane) windowStack.getChildren().get(1));
+    }
+
+    /**
+     * Registers the game, server and JVM metrics and starts serving them. Called on the
+     * JavaFX thread, whose allocations are reported as the game thread's.
+     */
+    private void startMetrics() {
+        metrics = new MetricsRegistry();
+        movesMade = metrics.counter("game_moves_total", "Moves that changed the board");
+        moveLatency = metrics.histogram("game_move_seconds",
+                "Time from a key press or agent command to the move applied, a tile spawned, the state published "
+                        + "and the animation started");
+        EventBus bus = game.getEventBus();
+        metrics.counter("game_events_dispatched_total", "Game events delivered to subscribers", "",
+                bus::getDispatched);
+
+        registerServerMetrics("tcp", gameServer.getStats(), gameServer::getClientCount,
+                gameServer::getRedundantFrames);
+        metrics.gauge("broadcast_client_queue_frames", "Frames queued for the connected clients", "server=\"tcp\"",
+                gameServer::getQueuedFrames);
+        if (webSocketServer != null)
+            registerServerMetrics("websocket", webSocketServer.getStats(), webSocketServer::getClientCount,
+                    webSocketServer::getRedundantFrames);
+
+        metrics.gauge("broadcast_pool_queue_depth", "Tasks waiting for a broadcast thread", "",
+                () -> BROADCAST_POOL.getQueue().size());
+        metrics.gauge("broadcast_pool_active_threads", "Broadcast threads running a task", "",
+                BROADCAST_POOL::getActiveCount);
+        metrics.counter("broadcast_pool_completed_tasks_total", "Tasks the broadcast pool has finished", "",
+                BROADCAST_POOL::getCompletedTaskCount);
+        int index = 0;
+        for (AsyncSubscriber<?> subscriber : bus.getAsyncSubscribers()) {
+            String labels = "subscriber=\"" + index++ + "\",event=\"" + subscriber.getName() + "\"";
+            metrics.gauge("event_async_queue_depth", "Events waiting for an asynchronous subscriber", labels,
+                    subscriber::getQueueDepth);
+            metrics.counter("event_async_dropped_total", "Events dropped because a subscriber's queue was full",
+                    labels, subscriber::getDropped);
+        }
+        if (agentChannel != null)
+            metrics.counter("ipc_states_dropped_total", "States the agent channel dropped because the agent fell behind",
+                    "", agentChannel::getDroppedStates);
+        JvmMetrics.register(metrics, Thread.currentThread());
+
+        metricsServer = new MetricsServer(metrics);
+        try {
+            metricsServer.start(metricsPort);
+        } catch (IOException e) {
+            System.err.println("Error starting metrics server: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Registers the metrics of one spectator server.
+     *
+     * @param server    The label value naming the server.
+     * @param stats     The server's totals.
+     * @param clients   Returns the connected clients.
+     * @param unchanged Returns the states skipped because nothing changed.
+     */
+    private void registerServerMetrics(String server, BroadcastStats stats, IntSupplier clients, LongSupplier unchanged) {
+        String labels = "server=\"" + server + "\"";
+        metrics.gauge("broadcast_clients", "Connected spectators", labels, clients::getAsInt);
+        metrics.counter("broadcast_frames_sent_total", "States delivered, counted once per client", labels,
+                stats::getFramesSent);
+        metrics.counter("broadcast_bytes_sent_total", "Bytes written to clients", labels, stats::getBytesSent);
+        metrics.counter("broadcast_frames_dropped_total", "States dropped because a client fell behind", labels,
+                stats::getFramesDropped);
+        metrics.counter("broadcast_frames_coalesced_total", "States sent in the same write as the state before",
+                labels, stats::getFramesCoalesced);
+        metrics.counter("broadcast_frames_unchanged_total", "States not sent because nothing had changed", labels,
+                unchanged);
+    }
+
+    /**
+     * Hands the current position to the hint engine, if hints are enabled
+     */
+    private void analysePosition() {
+        if (hintEngine != null)
+            hintEngine.analyse(game.getPackedBoard());
+    }
+
+    /**
+     * Highlights a hint from the hint engine, unless the board has changed since it was asked for.
+     *
+     * @param board The packed board the hint is for.
+     * @param move  The suggested move code (see {@link Board}).
+     */
+    private void onHint(long board, int move) {
+        if (board != game.getPackedBoard() || game.getGameOver() || (game.getGameWon() && !game.getContinued()))
+            return;
+        ui.showHint(move);
+    }
+
+    /**
+     * Records the transition made by the last move if recording is enabled
+     *
+     * @param direction The move code (see {@link Board}).
+     */
+    private void recordMove(int direction) {
+        if (recorder == null)
+            return;
+        long nextBoard = game.getPackedBoard();
+        recorder.record(boardBeforeMove, direction,
+                game.getNewScore() - scoreBeforeMove, nextBoard);
+        boardBeforeMove = nextBoard;
+        scoreBeforeMove = game.getNewScore();
+    }
+
+    /**
+     * Reads commands from the agent channel until stopped, and hands each one to the
+     * JavaFX thread, where it is played like a key press
+     */
+    private void readAgentCommands() {
+        WaitStrategy wait = ipcSpin ? WaitStrategy.BUSY_SPIN : WaitStrategy.PARK;
+        int attempt = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            int command = agentChannel.pollCommand();
+            if (command < 0) {
+                wait.idle(attempt++);
+                continue;
             }
-        };
-        // Instead of new Thread(task).start();
-        BROADCAST_POOL.submit(task);
+            attempt = 0;
+            Platform.runLater(() -> onAgentCommand(command));
+        }
+    }
+
+    /**
+     * Plays a command from the agent channel: a move, or a new game.
+     *
+     * @param command A move code or SharedMemoryChannel.NEW_GAME
+     */
+    private void onAgentCommand(int command) {
+        if (command == SharedMemoryChannel.NEW_GAME) {
+            game.newGame();
+            return;
+        }
+        if (command < Board.UP || command > Board.LEFT) {
+            System.err.println("Ignoring unknown agent command: " + command);
+            return;
+        }
+        // Like the keyboard, moves do nothing while the win or game over screen is up
+        if (game.getGameOver() || (game.getGameWon() && !game.getContinued()))
+            return;
+        String direction = Board.moveName(command);
+        moveStart = System.nanoTime();
+        if (command == Board.UP || command == Board.DOWN)
+            game.moveVertical(0, direction);
+        else
+            game.moveHorizontal(0, direction);
+    }
+
+    /**
+     * Takes a copy of the current game state and hands it to the socket server's subscriber,
+     * which broadcasts it on a background thread
+     */
+    private void broadcastCurrentGameState() {
+        if (agentChannel != null) {
+            // Straight into shared memory: no copy of the board, no allocation, no system call
+            agentChannel.publishState(game.getSize(), game.getPackedBoard(), game.getNewScore(), game.getBestScore(),
+                    game.getMoveCount(), game.getGameWon(), game.getGameOver(), game.getFingerprint());
+        }
+        EventBus bus = game.getEventBus();
+        if (!bus.hasSubscribers(GameEvent.StateSnapshot.class))
+            return;
+        bus.publish(new GameEvent.StateSnapshot(new GameState(
+                game.getNewScore(),
+                game.getBestScore(),
+                game.getGameOver(),
+                game.getGameWon(),
+                game.getIntBoard(),
+                game.getMaxTile(),
+                game.getEmptyCells(),
+                game.getFingerprint()   // lets the servers skip blocked moves without comparing boards
+        )));
     }
 }
@@ -0,0 +1,787 @@
+/**
+ * GameEngine.java
+ * This class represents the core game logic for the 2048 game.
+ * It handles the game state, tile generation, board manipulation,
+ * and game-over/win conditions without notifying anyone.
+ */
+package com._2048;
+
+import com.engine.Board;
+import com.engine.BoardEngine;
+import com.engine.PackedBoardEngine;
+import com.jfr.GameOverCheckEvent;
+import com.jfr.MoveEvent;
+import com.jfr.SpawnEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * The GameEngine class encapsulates the state and logic of a 2048 game.
+ * It manages the board, scores, and game state (e.g., whether the game
+ * has been won or is over). It fires no events, so headless users such as
+ * bots and analysis tools pay nothing for observability they don't use;
+ * {@link Game} adds the property change events the UI listens to.
+ */
+public class GameEngine {
+    /**
+     *  Debug flag for custom tile generation.
+     *  ONLY CHANGE DEBUG IF YOU KNOW WHAT YOU ARE DOING
+     *  See generateTile() method for more options
+     */
+    private boolean debug = false;
+
+    public final static int BOARD_SIZE = 4; // The default size of the game board (4x4)
+    private final static int WINNING_SCORE = 2048; // The score needed to winn the game
+    private final static int WINNING_EXPONENT = Integer.numberOfTrailingZeros(WINNING_SCORE);
+    private final static long[][] ZOBRIST = zobristKeys(); // A random key per cell and tile exponent
+    private final int size; // The width and height of the game board
+    private final Tile[][] board; // The game board, represented as a 2D array of Tiles
+    private final BoardEngine engine; // Headless engine specialized for the board size, used for moves and move checks
+    private final Random rand; // Random number generator for tile placement
+    // Game state variables
+    private boolean gameWon, continued, gameOver, sameBoard;
+    private int oldScore, newScore, bestScore, moveCount;
+    private long boardHash; // The XOR of the keys of every tile, updated as tiles change
+    private int maxExponent, emptyCells; // The largest tile and the free cells, updated as tiles change
+
+    /**
+     * Default constructor. Initializes a new game with an empty 4x4 board.
+     */
+    public GameEngine(){
+        this(BOARD_SIZE);
+    }
+
+    /**
+     * Initializes a new game with an empty board of the given size.
+     *
+     * @param size The width and height of the board (see {@link BoardEngine} for the supported sizes)
+     */
+    public GameEngine(int size){
+        this(size, new Random());
+    }
+
+    /**
+     * Initializes a new game with an empty board of the given size whose tiles are generated
+     * from the given seed, so the same moves always lead to the same game.
+     *
+     * @param size The width and height of the board (see {@link BoardEngine} for the supported sizes)
+     * @param seed The seed for tile placement
+     */
+    public GameEngine(int size, long seed){
+        this(size, new Random(seed));
+    }
+
+    private GameEngine(int size, Random rand){
+        this.size = size;
+        this.engine = BoardEngine.create(size);
+        this.board = new Tile[size][size];
+        this.rand = rand;
+        this.gameWon = false;
+        this.continued = false;
+        this.gameOver = false;
+        this.sameBoard = true;
+        this.moveCount = 0;
+        this.emptyCells = size * size;
+        initializeBoard();
+    }
+
+    /**
+     * Copy constructor. Initializes a new game with the state of the given game.
+     *
+     * @param game The game to copy the state from
+     */
+    public GameEngine(GameEngine game){
+        this.size = game.size;
+        this.engine = BoardEngine.create(game.size);
+        this.board = new Tile[size][size];
+        this.rand = new Random();
+        this.gameWon = game.gameWon;
+        this.continued = game.continued;
+        this.gameOver = game.gameOver;
+        this.oldScore = game.oldScore;
+        this.newScore = game.newScore;
+        this.bestScore = game.bestScore;
+        this.sameBoard = game.sameBoard;
+        this.moveCount = game.moveCount;
+        this.debug = game.debug;
+        initializeBoard();
+        for(int i = 0; i < size; i++){
+            for(int j = 0; j < size; j++){
+                this.board[i][j].setValue(game.board[i][j].getValue());
+            }
+        }
+        this.boardHash = game.boardHash;
+        this.maxExponent = game.maxExponent;
+        this.emptyCells = game.emptyCells;
+    }
+
+    /**
+     * Initializes the game board with empty tiles.
+     */
+    public void initializeBoard(){
+        for(int i = 0; i < size; i++){
+            for(int j = 0; j < size; j++){
+                this.board[i][j] = new Tile();
+            }
+        }
+    }
+
+    /**
+     * Clears the game board, resetting all tiles to their default values.
+     */
+    public void clearBoard(){
+        for(int i = 0; i < size; i++){
+            for(int j = 0; j < size; j++){
+                board[i][j].setValue(0);
+                board[i][j].setMoveGenerated(-1);
+                board[i][j].setAnimationPlayed(false);
+            }
+        }
+        this.boardHash = 0;
+        this.maxExponent = 0;
+        this.emptyCells = size * size;
+    }
+
+    /**
+     * Starts a new game by clearing the board, resetting scores and game state,
+     * and generating the initial two tiles
+     */
+    public void newGame(){
+        clearBoard();
+        this.oldScore = 0;
+        this.newScore = 0;
+        this.gameWon = false;
+        this.continued = false;
+        this.gameOver = false;
+        this.moveCount = 0;
+        generateTile(this.debug);
+        generateTile(this.debug);
+    }
+
+    /**
+     * Generates a new tile on the board. If debug mode is enabled,
+     * custom tiles are generated at specific positions.
+     *
+     * @param debug Flag indicating whether to generate custom tiles for debugging.
+     */
+    public void generateTile(boolean debug){
+        SpawnEvent event = new SpawnEvent();
+        event.begin();
+        // Debug mode: Custom tile generation for testing
+        if(debug){
+            int pos = 0, val = 2;
+            for (int j = 0; j < size; j++) {
+                tileChanged(pos, j, this.board[pos][j].getValue(), val);
+                this.board[pos][j].setValue(val);
+                this.board[pos][j].setMoveGenerated(this.moveCount);
+            }
+        } else { // Default random tile generation
+            if ((!gameWon || continued) && !gameOver && emptyCells > 0) {
+                int t1 = ((rand.nextInt(1, 6) % 4) == 0) ? 4 : 2, r1 = rand.nextInt(size), c1 = rand.nextInt(size);
+                while (board[r1][c1].isNotEmpty()) {
+                    r1 = rand.nextInt(size);
+                    c1 = rand.nextInt(size);
+                }
+                this.board[r1][c1].setValue(t1);
+                tileChanged(r1, c1, 0, t1);
+                this.board[r1][c1].setMoveGenerated(this.moveCount);
+                event.value = t1;
+                event.row = r1;
+                event.column = c1;
+            }
+        }
+        if (event.shouldCommit()) {
+            event.emptyCells = this.emptyCells;
+            event.fingerprint = getFingerprint();
+            event.commit();
+        }
+        // check if the game is over after a tile generates
+        checkForGameOver();
+    }
+
+    /**
+     * Determines whether to generate a new tile based on the state of the board
+     * and the current move direction.
+     *
+     * @param sameBoard Flag indicating whether the board state is the same as before the move.
+     * @param iteration The current iteration of the move (0 for the initial move, 1 for final check).
+     * @param direction The direction of the move ("up", "down", "left", or "right").
+     */
+    public void generateTileDecision(boolean sameBoard, int iteration, String direction){
+        if(!sameBoard && iteration == 0) {
+            incrementMoveCount();
+        }
+    }
+
+    /**
+     * Moves tiles vertically based on the specified direction.
+     *
+     * @param iteration The current iteration of the move (0 for the initial move, 1 for final check).
+     * @param direction The direction of the move ("up" or "down").
+     */
+    public void moveVertical(int iteration, String direction) {
+        moveTiles(iteration, direction);
+    }
+
+    /**
+     * Moves tiles horizontally based on the specified direction.
+     *
+     * @param iteration The current iteration of the move (0 for the initial move, 1 for final check).
+     * @param direction The direction of the move ("left" or "right").
+     */
+    public void moveHorizontal(int iteration, String direction){
+        moveTiles(iteration, direction);
+    }
+
+    /**
+     * Makes one pass of a move: the initial pass slides and merges the tiles, the final check
+     * only slides them.
+     *
+     * @param iteration The current iteration of the move (0 for the initial move, 1 for final check).
+     * @param direction The direction of the move ("up", "down", "left", or "right").
+     */
+    private void moveTiles(int iteration, String direction) {
+        MoveEvent event = new MoveEvent();
+        event.begin();
+        int scoreBefore = this.newScore, emptyBefore = this.emptyCells;
+        sameBoard = true;
+        int code = Board.moveCode(direction);
+        // The packed engine stops merging at 32768, so a board that has reached it merges tile by tile
+        if (iteration != 0)
+            slideTiles(code);
+        else if (this.maxExponent < Board.MAX_EXPONENT)
+            mergeTiles(code);
+        else
+            condenseTiles(code, direction);
+        // Checking once per move whether the merges created a winning tile
+        if (iteration == 0)
+            checkForWin();
+        commitMove(event, direction, iteration, scoreBefore, emptyBefore);
+        // Sending an update whether a tile will be generated or not
+        generateTileDecision(sameBoard, iteration, direction);
+    }
+
+    /**
+     * Slides and merges the tiles with the board engine, then copies the cells that changed
+     * back into the tiles.
+     *
+     * @param direction The move code (see {@link Board})
+     */
+    private void mergeTiles(int direction) {
+        for (int i = 0; i < size; i++)
+            for (int j = 0; j < size; j++)
+                engine.setExponent(i, j, Board.toExponent(board[i][j].getValue()));
+        int gained = engine.move(direction);
+        if (gained > 0)
+            this.newScore += gained;
+        // update the best score
+        if (this.newScore >= this.bestScore)
+            this.setBestScore(this.newScore);
+        if (gained < 0)
+            return;
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int before = board[i][j].getValue(), after = Board.toValue(engine.getExponent(i, j));
+                if (before != after) {
+                    sameBoard = false;
+                    tileChanged(i, j, before, after);
+                    board[i][j].setValue(after);
+                    board[i][j].setMoveGenerated(-1);
+                    board[i][j].setAnimationPlayed(false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Slides the tiles towards the side they move to without merging them, moving the Tile
+     * objects themselves.
+     *
+     * @param direction The move code (see {@link Board})
+     */
+    private void slideTiles(int direction) {
+        for (int line = 0; line < size; line++) {
+            int next = 0; // The next free cell, counted from the side the tiles move towards
+            for (int k = 0; k < size; k++) {
+                int r = lineRow(direction, line, k), c = lineColumn(direction, line, k);
+                Tile tile = board[r][c];
+                if (tile.isNotEmpty()) {
+                    if (k != next) {
+                        int toRow = lineRow(direction, line, next), toCol = lineColumn(direction, line, next);
+                        board[r][c] = board[toRow][toCol];
+                        board[toRow][toCol] = tile;
+                        sameBoard = false;
+                        tileChanged(r, c, tile.getValue(), 0);
+                        tileChanged(toRow, toCol, 0, tile.getValue());
+                    }
+                    next++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Slides and merges the tiles one line at a time with {@link #condense}, for boards whose
+     * tiles have grown past what the board engine can hold.
+     *
+     * @param direction The move code (see {@link Board})
+     * @param name      The direction of the move ("up", "down", "left", or "right")
+     */
+    private void condenseTiles(int direction, String name) {
+        boolean vertical = direction == Board.UP || direction == Board.DOWN;
+        for (int line = 0; line < size; line++) {
+            List<Tile> tiles = new ArrayList<>(size);
+            for (int k = 0; k < size; k++)
+                tiles.add(vertical ? board[k][line] : board[line][k]);
+            List<Tile> condensed = condense(tiles, name);
+            for (int k = 0; k < size; k++) {
+                int r = vertical ? k : line, c = vertical ? line : k;
+                int before = tiles.get(k).getValue(), after = condensed.get(k).getValue();
+                board[r][c] = condensed.get(k);
+                if (before != after) {
+                    sameBoard = false;
+                    tileChanged(r, c, before, after);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the row of the k-th cell of a line, counted from the side the tiles move towards.
+     */
+    private int lineRow(int direction, int line, int k) {
+        return switch (direction) {
+            case Board.UP -> k;
+            case Board.DOWN -> size - 1 - k;
+            default -> line;
+        };
+    }
+
+    /**
+     * Returns the column of the k-th cell of a line, counted from the side the tiles move towards.
+     */
+    private int lineColumn(int direction, int line, int k) {
+        return switch (direction) {
+            case Board.LEFT -> k;
+            case Board.RIGHT -> size - 1 - k;
+            default -> line;
+        };
+    }
+
+    /**
+     * Records a pass of a move for JFR, if a recording wants it.
+     *
+     * @param event       The event begun at the start of the pass
+     * @param direction   The direction of the move
+     * @param iteration   The pass (0 for the initial move, 1 for final check)
+     * @param scoreBefore The score before the pass
+     * @param emptyBefore The empty cells before the pass
+     */
+    private void commitMove(MoveEvent event, String direction, int iteration, int scoreBefore, int emptyBefore){
+        if (!event.shouldCommit())
+            return;
+        event.direction = direction;
+        event.pass = iteration;
+        event.changed = !this.sameBoard;
+        event.scoreDelta = this.newScore - scoreBefore;
+        event.merges = this.emptyCells - emptyBefore; // Every merge frees a cell
+        event.fingerprint = getFingerprint();
+        event.commit();
+    }
+
+    /**
+     * Makes a complete move for headless play, such as bots: slides and merges the tiles, then
+     * generates a new tile if the board changed. On a {@link Game}, the controller already
+     * finishes each move when it receives the move event, so this is meant for engines that
+     * nobody is subscribed to.
+     *
+     * @param direction The move code (see {@link Board})
+     * @return True if the move changed the board
+     */
+    public boolean move(int direction){
+        String name = Board.moveName(direction);
+        if (direction == Board.UP || direction == Board.DOWN)
+            moveVertical(0, name);
+        else
+            moveHorizontal(0, name);
+        if (this.sameBoard)
+            return false;
+        generateTile(this.debug);
+        return true;
+    }
+
+    /**
+     * Condenses a list of tiles by merging adjacent tiles of the same value.
+     * Updates the score based on the merged values.
+     *
+     * @param list The list of tiles to condense
+     * @param direction The direction of the move ("up", "down", "left", "right").
+     * @return The condensed list of tiles
+     */
+    public List<Tile> condense(List<Tile> list, String direction) {
+        // remove empty tiles
+        List<Tile> nonEmpty = new LinkedList<>();
+        for (Tile t : list) {
+            if (t.isNotEmpty()) nonEmpty.add(t);
+        }
+
+        // tiles merge starting from the side they move towards, so work on the reversed
+        // list when moving down or right
+        boolean towardsEnd = direction.equals("down") || direction.equals("right");
+        if (towardsEnd) Collections.reverse(nonEmpty);
+
+        // continuously merge adjacent equal tiles
+        List<Tile> merged = new LinkedList<>();
+        int i = 0;
+        while (i < nonEmpty.size()) {
+            if (i + 1 < nonEmpty.size() &&
+                    nonEmpty.get(i).getValue() == nonEmpty.get(i + 1).getValue()) {
+                int mergedValue = nonEmpty.get(i).getValue() * 2;
+                merged.add(new Tile(mergedValue));
+                this.newScore += mergedValue;
+                i += 2; // skip next tile
+            } else {
+                merged.add(new Tile(nonEmpty.get(i).getValue()));
+                i++;
+            }
+        }
+
+        if (towardsEnd) Collections.reverse(merged);
+
+        // pad empty spaces with empty tiles
+        int missing = size - merged.size();
+        for (int j = 0; j < missing; j++) {
+            if (direction.equals("up") || direction.equals("left"))
+                merged.add(new Tile());
+            else
+                merged.add(0, new Tile());
+        }
+
+        // update the best score
+        if (this.newScore >= this.bestScore)
+            this.setBestScore(this.newScore);
+
+        return merged;
+    }
+
+
+    /**
+     * Checks if the game has been won (i.e., a tile with the winning score has been created).
+     */
+    public void checkForWin(){
+        // The largest tile is kept up to date, and 2048 can only be passed by first making it
+        if(this.maxExponent >= WINNING_EXPONENT && !this.continued)
+            this.gameWon = true;
+    }
+
+    /**
+     * Checks if the game is over (i.e., no more moves can be made).
+     */
+    public void checkForGameOver(){
+        GameOverCheckEvent event = new GameOverCheckEvent();
+        event.begin();
+        // A tile can always move into an empty cell, so only a full board needs looking at
+        if(this.emptyCells > 0) {
+            event.commit();
+            return;
+        }
+        // Checking the board for possible moves now that it is full
+        for(int i = 0; i < size; i++){
+            for(int j = 0; j < size; j++){
+                engine.setExponent(i, j, Integer.numberOfTrailingZeros(board[i][j].getValue()));
+            }
+        }
+        // If there are no zero tiles left and no moves are possible, then the game is over
+        if(!engine.canMove()) {
+            this.gameOver = true;
+        }
+        if (event.shouldCommit()) {
+            event.fullBoard = true;
+            event.gameOver = this.gameOver;
+            event.commit();
+        }
+    }
+
+    /**
+     * Continues the game after reaching the winning score.
+     */
+    public void continueGame(){
+        this.continued = true;
+    }
+
+    // Getter and Setter methods
+
+    /**
+     * Returns the current game board.
+     *
+     * @return The game board.
+     */
+    public Tile[][] getBoard(){
+        return this.board;
+    }
+
+    public int[][] getIntBoard() {
+        int[][] board = new int[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                board[i][j] = this.board[i][j].getValue();
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Returns the board in the packed 64-bit form used by the headless and analysis code.
+     * Cell (row, col) is stored at nibble row * size + col, so a 4x4 board uses the
+     * {@link com.engine.Board} layout.
+     *
+     * @return The packed board
+     * @throws IllegalStateException If the board is too large to fit in a long
+     */
+    public long getPackedBoard() {
+        if (size > PackedBoardEngine.MAX_SIZE)
+            throw new IllegalStateException("A " + size + "x" + size + " board does not fit in a long");
+        long packed = 0;
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                packed |= (long) Board.toExponent(this.board[i][j].getValue()) << ((i * size + j) << 2);
+            }
+        }
+        return packed;
+    }
+
+    /**
+     * Returns a 64-bit fingerprint of everything a spectator sees: the board, both scores,
+     * and whether the game is won or over. The board part is a Zobrist hash kept up to date
+     * as tiles move, merge and spawn, so this takes constant time. Two equal states always
+     * have the same fingerprint, and different states almost never do.
+     *
+     * @return The fingerprint of the current state
+     */
+    public long getFingerprint(){
+        long h = mix(boardHash ^ newScore);
+        h = mix(h ^ bestScore);
+        return mix(h ^ (gameWon ? 1 : 0) ^ (gameOver ? 2 : 0));
+    }
+
+    /**
+     * Returns the exponent of the largest tile on the board (11 for a 2048), without looking
+     * at the board.
+     *
+     * @return The largest exponent, or 0 for an empty board
+     */
+    public int getMaxExponent(){
+        return this.maxExponent;
+    }
+
+    /**
+     * Returns the value of the largest tile on the board.
+     *
+     * @return The largest tile, or 0 for an empty board
+     */
+    public int getMaxTile(){
+        return this.maxExponent == 0 ? 0 : 1 << this.maxExponent;
+    }
+
+    /**
+     * Returns the number of empty cells, without looking at the board.
+     *
+     * @return The number of empty cells
+     */
+    public int getEmptyCells(){
+        return this.emptyCells;
+    }
+
+    /**
+     * Updates the hash, the largest tile and the empty cell count for one cell whose value
+     * changed. Merges only ever make tiles bigger, so the largest tile never has to be found
+     * again until the board is cleared.
+     */
+    private void tileChanged(int row, int col, int before, int after){
+        boardHash ^= zobrist(row, col, before) ^ zobrist(row, col, after);
+        if (before == 0)
+            emptyCells--;
+        if (after == 0)
+            emptyCells++;
+        maxExponent = Math.max(maxExponent, Integer.numberOfTrailingZeros(after) & 31);
+    }
+
+    /**
+     * Returns the Zobrist key of a tile, or 0 for an empty cell.
+     */
+    private long zobrist(int row, int col, int value){
+        return value == 0 ? 0 : ZOBRIST[row * size + col][Integer.numberOfTrailingZeros(value) & 31];
+    }
+
+    private static long[][] zobristKeys(){
+        // A fixed seed, so fingerprints are the same from one run to the next
+        SplittableRandom random = new SplittableRandom(2048);
+        long[][] keys = new long[BoardEngine.MAX_SIZE * BoardEngine.MAX_SIZE][32];
+        for (long[] cell : keys)
+            for (int e = 0; e < cell.length; e++)
+                cell[e] = random.nextLong();
+        return keys;
+    }
+
+    /**
+     * The finalizer of MurmurHash3, which spreads every input bit over the whole result.
+     */
+    private static long mix(long h){
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    /**
+     * Returns whether the game has been won.
+     *
+     * @return True if the game has been won, false otherwise.
+     */
+    public boolean getGameWon(){
+        return this.gameWon;
+    }
+
+    /**
+     * Returns whether the player chose to keep playing after winning.
+     *
+     * @return True if the game was continued, false otherwise
+     */
+    public boolean getContinued(){
+        return this.continued;
+    }
+
+    /**
+     * Returns whether the game is over.
+     *
+     * @return True if the game is over, false otherwise
+     */
+    public boolean getGameOver() { return this.gameOver; }
+
+    /**
+     * Returns the old score (before the last move).
+     *
+     * @return The old score.
+     */
+    public int getOldScore(){
+        return this.oldScore;
+    }
+
+    /**
+     * Sets the old score (before the last move).
+     *
+     * @param s The old score.
+     */
+    public void setOldScore(int s){
+        this.oldScore = s;
+    }
+
+    /**
+     * Returns the new score (after the last move).
+     *
+     * @return The new score.
+     */
+    public int getNewScore(){
+        return this.newScore;
+    }
+
+    /**
+     * Returns the best score achieved in the game.
+     *
+     * @return The best score.
+     */
+    public int getBestScore(){
+        return this.bestScore;
+    }
+
+    /**
+     * Sets the best score achieved in the game.
+     *
+     * @param bs The best score.
+     */
+    public void setBestScore(int bs){
+        this.bestScore = bs;
+    }
+
+    /**
+     * Returns whether the board state is the same as before the last move.
+     *
+     * @return True if the board state is the same, otherwise false.
+     */
+    public boolean getSameBoard(){
+        return this.sameBoard;
+    }
+
+    /**
+     * Returns the current move count.
+     *
+     * @return The move count.
+     */
+    public int getMoveCount(){
+        return this.moveCount;
+    }
+
+    /**
+     * Increments the move count by 1.
+     */
+    public void incrementMoveCount(){
+        this.moveCount++;
+    }
+
+    /**
+     * Returns the debug flag.
+     *
+     * @return True if debug mode is enabled, otherwise false.
+     */
+    public boolean getDebug(){
+        return this.debug;
+    }
+
+    /**
+     * Returns the width and height of the board.
+     *
+     * @return The board size.
+     */
+    public int getSize(){
+        return this.size;
+    }
+
+    @Override
+    public String toString(){
+        StringBuilder string = new StringBuilder();
+        for(int i = 0; i < size; i++){
+            for(int j = 0; j < size; j++){
+                if (board[i][j].getValue() >= 1024)
+                    string.append(board[i][j].getValue()).append("\t");
+                else
+                    string.append(board[i][j].getValue()).append("\t\t");
+            }
+            string.append("\n");
+        }
+        return string.toString();
+    }
+
+    @Override
+    public boolean equals(Object object){
+        if(!(object instanceof GameEngine game) || game.size != this.size || game.boardHash != this.boardHash)
+            return false;
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                if (this.board[i][j].getValue() != game.getBoard()[i][j].getValue())
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode(){
+        return Long.hashCode(boardHash);
+    }
+}
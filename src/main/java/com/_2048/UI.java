@@ -1,5 +1,6 @@
 package com._2048;
 
+import com.jfr.AnimationEvent;
 import javafx.animation.*;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
@@ -19,12 +20,15 @@ public class UI {
     private final static int SCORE_TILE_SIZE = 100, TILE_SIZE = 120, GRID_SIZE = 500, SCROLLING_DISTANCE = 2;
     private final static Duration ANIMATION_TIME = Duration.seconds(0.10),
             SCROLLING_ANIMATION_TIME = Duration.seconds(2);
+    private final static String HINT_COLOR = "rgb(246, 94, 59)";
 
     private static Label scoreVal, bestScoreVal;
     private static final StackPane scoreStack = new StackPane();
-    public static Label[][] labelGrid = new Label[4][4];
+    public static Label[][] labelGrid = new Label[Game.BOARD_SIZE][Game.BOARD_SIZE];
 
     private Animation currentAnimation = null;
+    private GridPane grid; // The game's grid, whose edges show the hinted move
+    private int tileSize = TILE_SIZE; // The size of a tile, scaled so every board fits the grid
 
     /**
      * Creates and initializes the game grid with tiles.
@@ -34,20 +38,25 @@ public class UI {
     @NotNull
     public GridPane createGrid() {
         // Creating and styling the game's grid
-        GridPane grid = new GridPane();
+        grid = new GridPane();
         grid.setMinSize(GRID_SIZE, GRID_SIZE);
         grid.setMaxSize(GRID_SIZE, GRID_SIZE);
         grid.getStyleClass().addAll("grid");
 
+        // Sizing the tiles so the whole board fits in the grid
+        int size = Controller.getGame().getSize();
+        labelGrid = new Label[size][size];
+        tileSize = TILE_SIZE * Game.BOARD_SIZE / size;
+
         // Looping through the grid
-        for (int i = 0; i < 4; i++) {
-            for (int j = 0; j < 4; j++) {
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
                 // Creating and styling default labels for the grid
                 Label label = new Label("0");
                 if (label.getText().equals("0"))
                     label.setText("");
                 label.getStyleClass().addAll("margin", "game-tile");
-                label.setStyle("-fx-background-color: rgb(203, 193, 178);");
+                label.setStyle("-fx-background-color: rgb(203, 193, 178);" + getTileSizeStyle());
                 grid.add(label, i, j);
                 labelGrid[i][j] = label;
             }
@@ -358,6 +367,8 @@ public class UI {
         if (currentAnimation != null && currentAnimation.getStatus() == Animation.Status.RUNNING) {
             return;
         }
+        AnimationEvent event = new AnimationEvent();
+        event.begin();
         // Updating the game's score and playing the score animation
         updateScore();
         // Disabling input while animation is playing (it is re-enabled per tile I think)
@@ -365,160 +376,111 @@ public class UI {
         // Creating a ParallelTransition that will hold all the tile movement animations
         ParallelTransition tileAnimations = new ParallelTransition();
         if (direction != null && !Controller.getGame().getGameWon()) {
-            switch (direction) {
-                case "up" -> {
-                    // Looping through each tile in the board
-                    for (int i = 0; i < Game.BOARD_SIZE; i++) {
-                        for (int j = 0; j < Game.BOARD_SIZE; j++) {
-                            int spacesToMove = 0;
-                            // If the tile has a number, see if it needs to be moved up
-                            if (!labelGrid[j][i].getText().isEmpty()) {
-                                // If there is a collision, the tile can move up again
-                                if (i == 1 && !labelGrid[j][i].getText().isEmpty() &&
-                                        labelGrid[j][i].getText().equals(labelGrid[j][i - 1].getText()))
-                                    spacesToMove++;
-                                if (i == 2 && !labelGrid[j][i].getText().isEmpty() &&
-                                        ((labelGrid[j][i].getText().equals(labelGrid[j][i - 2].getText()) &&
-                                                labelGrid[j][i - 1].getText().isEmpty()) ||
-                                                labelGrid[j][i].getText().equals(labelGrid[j][i - 1].getText())))
-                                    spacesToMove++;
-                                if (i == 3 && !labelGrid[j][i].getText().isEmpty() &&
-                                        ((labelGrid[j][i].getText().equals(labelGrid[j][i - 3].getText()) &&
-                                                labelGrid[j][i - 2].getText().isEmpty() &&
-                                                labelGrid[j][i - 1].getText().isEmpty()) ||
-                                                (labelGrid[j][i].getText().equals(labelGrid[j][i - 2].getText()) &&
-                                                        labelGrid[j][i - 1].getText().isEmpty()) ||
-                                                labelGrid[j][i].getText().equals(labelGrid[j][i - 1].getText())))
-                                    spacesToMove++;
-                                // Checking every tile above the current tile
-                                for (int k = 0; k < i; k++) {
-                                    // If there is any empty space, the tile can move up
-                                    if (labelGrid[j][k].getText().isEmpty())
-                                        spacesToMove++;
-                                }
-                                // Animate the tile moving up
-                                tileAnimations.getChildren().addAll(createTileMoveAnimation(quick, j, i, j, i - spacesToMove));
-                            }
-                        }
-                    }
-                }
-                case "down" -> {
-                    // Looping through each tile in the board
-                    for (int i = 0; i < Game.BOARD_SIZE; i++) {
-                        for (int j = 0; j < Game.BOARD_SIZE; j++) {
-                            int spacesToMove = 0;
-                            // If the tile has a number, see if it needs to be moved down
-                            if (!labelGrid[j][i].getText().isEmpty()) {
-                                // If there is a collision, the tile can move down again
-                                if (i == 2 && !labelGrid[j][i].getText().isEmpty() &&
-                                        labelGrid[j][i].getText().equals(labelGrid[j][i + 1].getText()))
-                                    spacesToMove++;
-                                if (i == 1 && !labelGrid[j][i].getText().isEmpty() &&
-                                        (labelGrid[j][i].getText().equals(labelGrid[j][i + 1].getText()) ||
-                                                (labelGrid[j][i].getText().equals(labelGrid[j][i + 2].getText()) &&
-                                                        labelGrid[j][i + 1].getText().isEmpty())))
-                                    spacesToMove++;
-                                if (i == 0 && !labelGrid[j][i].getText().isEmpty() &&
-                                        (labelGrid[j][i].getText().equals(labelGrid[j][i + 1].getText()) ||
-                                                (labelGrid[j][i].getText().equals(labelGrid[j][i + 2].getText()) &&
-                                                        labelGrid[j][i + 1].getText().isEmpty()) ||
-                                                (labelGrid[j][i].getText().equals(labelGrid[j][i + 3].getText()) &&
-                                                        labelGrid[j][i + 2].getText().isEmpty() &&
-                                                        labelGrid[j][i + 1].getText().isEmpty())))
-                                    spacesToMove++;
-                                // Checking every tile below the current tile
-                                for (int k = 3; k > i; k--) {
-                                    // If there is any empty space, the tile can move down
-                                    if (labelGrid[j][k].getText().isEmpty())
-                                        spacesToMove++;
-                                }
-                                // Animate the tile moving down
-                                tileAnimations.getChildren().addAll(createTileMoveAnimation(quick, j, i, j, i + spacesToMove));
-                            }
-                        }
-                    }
-                }
-                case "right" -> {
-                    // Looping through each tile in the board
-                    for (int i = 0; i < Game.BOARD_SIZE; i++) {
-                        for (int j = 0; j < Game.BOARD_SIZE; j++) {
-                            int spacesToMove = 0;
-                            // If the tile has a number, see if it needs to be moved right
-                            if (!labelGrid[j][i].getText().isEmpty()) {
-                                // If there is a collision, the tile can move right again
-                                if (j == 2 && !labelGrid[j][i].getText().isEmpty() &&
-                                        (labelGrid[j][i].getText().equals(labelGrid[j + 1][i].getText())))
-                                    spacesToMove++;
-                                if (j == 1 && !labelGrid[j][i].getText().isEmpty() &&
-                                        ((labelGrid[j][i].getText().equals(labelGrid[j + 2][i].getText()) &&
-                                                labelGrid[j + 1][i].getText().isEmpty()) ||
-                                                labelGrid[j][i].getText().equals(labelGrid[j + 1][i].getText())))
-                                    spacesToMove++;
-                                if (j == 0 && !labelGrid[j][i].getText().isEmpty() &&
-                                        ((labelGrid[j][i].getText().equals(labelGrid[j + 3][i].getText()) &&
-                                                labelGrid[j + 2][i].getText().isEmpty() &&
-                                                labelGrid[j + 1][i].getText().isEmpty()) ||
-                                                (labelGrid[j][i].getText().equals(labelGrid[j + 2][i].getText()) &&
-                                                        labelGrid[j + 1][i].getText().isEmpty()) ||
-                                                labelGrid[j][i].getText().equals(labelGrid[j + 1][i].getText())))
-                                    spacesToMove++;
-                                // Checking every tile right of the current tile
-                                for (int k = 3; k > j; k--) {
-                                    // If there is any empty space, the tile can move right
-                                    if (labelGrid[k][i].getText().isEmpty())
-                                        spacesToMove++;
-                                }
-                                // Animate the tile moving right
-                                tileAnimations.getChildren().addAll(createTileMoveAnimation(quick, j, i, j + spacesToMove, i));
-                            }
-                        }
-                    }
-                }
-                case "left" -> {
-                    // Looping through each tile in the board
-                    for (int i = 0; i < Game.BOARD_SIZE; i++) {
-                        for (int j = 0; j < Game.BOARD_SIZE; j++) {
-                            int spacesToMove = 0;
-                            // If the tile has a number, see if it needs to be moved left
-                            if (!labelGrid[j][i].getText().isEmpty()) {
-                                // If there is a collision, the tile can move left again
-                                if (j == 1 && !labelGrid[j][i].getText().isEmpty() &&
-                                        (labelGrid[j][i].getText().equals(labelGrid[j - 1][i].getText())))
-                                    spacesToMove++;
-                                if (j == 2 && !labelGrid[j][i].getText().isEmpty() &&
-                                        ((labelGrid[j][i].getText().equals(labelGrid[j - 2][i].getText()) &&
-                                                labelGrid[j - 1][i].getText().isEmpty()) ||
-                                                labelGrid[j][i].getText().equals(labelGrid[j - 1][i].getText())))
-                                    spacesToMove++;
-                                if (j == 3 && !labelGrid[j][i].getText().isEmpty() &&
-                                        ((labelGrid[j][i].getText().equals(labelGrid[j - 3][i].getText()) &&
-                                                labelGrid[j - 2][i].getText().isEmpty() &&
-                                                labelGrid[j - 1][i].getText().isEmpty()) ||
-                                                (labelGrid[j][i].getText().equals(labelGrid[j - 2][i].getText()) &&
-                                                        labelGrid[j - 1][i].getText().isEmpty()) ||
-                                                labelGrid[j][i].getText().equals(labelGrid[j - 1][i].getText())))
-                                    spacesToMove++;
-                                // Checking every tile left of the current tile
-                                for (int k = 0; k < j; k++) {
-                                    // If there is any empty space, the tile can move left
-                                    if (labelGrid[k][i].getText().isEmpty())
-                                        spacesToMove++;
-                                }
-                                // Animate the tile moving left
-                                tileAnimations.getChildren().addAll(createTileMoveAnimation(quick, j, i, j - spacesToMove, i));
-                            }
-                        }
+            int size = labelGrid.length;
+            // Looping through each row or column the tiles move along
+            for (int line = 0; line < size; line++) {
+                // Walking the line starting from the wall the tiles move towards
+                int destination = 0;
+                String mergeable = null; // The value of the last placed tile, if it can still merge
+                for (int k = 0; k < size; k++) {
+                    int x = lineX(direction, line, k, size), y = lineY(direction, line, k, size);
+                    String text = labelGrid[x][y].getText();
+                    if (text.isEmpty())
+                        continue;
+                    int target;
+                    // If the tile collides with an equal tile, it merges into that tile's position
+                    if (text.equals(mergeable)) {
+                        target = destination - 1;
+                        mergeable = null;
+                    } else {
+                        target = destination++;
+                        mergeable = text;
                     }
+                    // Animate the tile moving to its new position
+                    tileAnimations.getChildren().addAll(createTileMoveAnimation(quick, x, y,
+                            lineX(direction, line, target, size), lineY(direction, line, target, size)));
                 }
             }
         }
         // Creating a PauseTransition that pauses GUI updating until the tile's moving animation completes
         PauseTransition pause = getPauseTransition(quick);
+        if (event.isEnabled()) {
+            // The event lasts until the tiles are redrawn in their final state
+            EventHandler<ActionEvent> redraw = pause.getOnFinished();
+            int tilesMoved = tileAnimations.getChildren().size();
+            pause.setOnFinished(e -> {
+                redraw.handle(e);
+                if (event.shouldCommit()) {
+                    event.direction = direction;
+                    event.tilesMoved = tilesMoved;
+                    event.quick = quick;
+                    event.commit();
+                }
+            });
+        }
         tileAnimations.play();
         currentAnimation = tileAnimations;
         pause.play();
     }
 
+    /**
+     * Returns the grid column of a cell on a line of the board, counting from the wall the
+     * tiles move towards.
+     *
+     * @param direction The direction of movement ("up", "down", "left", "right").
+     * @param line      The row (for "left"/"right") or column (for "up"/"down") of the line.
+     * @param k         The position along the line, 0 being next to the wall.
+     * @param size      The size of the board.
+     * @return The column of the cell.
+     */
+    private static int lineX(String direction, int line, int k, int size) {
+        return switch (direction) {
+            case "left" -> k;
+            case "right" -> size - 1 - k;
+            default -> line;
+        };
+    }
+
+    /**
+     * Returns the grid row of a cell on a line of the board, counting from the wall the
+     * tiles move towards.
+     *
+     * @param direction The direction of movement ("up", "down", "left", "right").
+     * @param line      The row (for "left"/"right") or column (for "up"/"down") of the line.
+     * @param k         The position along the line, 0 being next to the wall.
+     * @param size      The size of the board.
+     * @return The row of the cell.
+     */
+    private static int lineY(String direction, int line, int k, int size) {
+        return switch (direction) {
+            case "up" -> k;
+            case "down" -> size - 1 - k;
+            default -> line;
+        };
+    }
+
+    /**
+     * Gets the inline style that sizes a tile for the current board size.
+     *
+     * @return The style string setting the tile's minimum width and height.
+     */
+    private String getTileSizeStyle() {
+        return " -fx-min-width: " + tileSize + "px; -fx-min-height: " + tileSize + "px;";
+    }
+
+    /**
+     * Shrinks a tile's font size on boards larger than the default so the text still fits.
+     *
+     * @param fontSize The font size for a default-sized tile (e.g. "40pt").
+     * @return The font size for the current tile size.
+     */
+    private String getScaledFontSize(String fontSize) {
+        if (tileSize >= TILE_SIZE)
+            return fontSize;
+        double points = Double.parseDouble(fontSize.substring(0, fontSize.length() - 2));
+        return Math.round(points * tileSize / TILE_SIZE) + "pt";
+    }
+
     /**
      * Updates the score displayed on the GUI.
      */
@@ -529,6 +491,24 @@ public class UI {
             playAnimatedScore();
     }
 
+    /**
+     * Highlights the edge of the grid the hinted move pushes the tiles towards.
+     *
+     * @param direction The move code (see com.engine.Board), or -1 to clear the hint.
+     */
+    public void showHint(int direction) {
+        if (direction < 0) {
+            grid.setStyle("");
+            return;
+        }
+        // Move codes run up, right, down, left: the same order as CSS border sides
+        String[] colors = {"transparent", "transparent", "transparent", "transparent"};
+        colors[direction] = HINT_COLOR;
+        // Drawn just outside the grid, so the tiles do not move
+        grid.setStyle("-fx-border-color: " + String.join(" ", colors) + "; -fx-border-width: 6;"
+                + " -fx-border-insets: -6; -fx-border-radius: 5;");
+    }
+
     /**
      * Gets a PauseTransition object based on animation speed.
      *
@@ -547,15 +527,15 @@ public class UI {
         // Once the animation finishes, manually reset every board tile to its correct representation
         pause.setOnFinished(e->{
             // Looping through the board
-            for (int i = 0; i < Game.BOARD_SIZE; i++) {
-                for (int j = 0; j < Game.BOARD_SIZE; j++) {
+            for (int i = 0; i < labelGrid.length; i++) {
+                for (int j = 0; j < labelGrid.length; j++) {
                     // Updating the tile's value, text color, background color, and font size
                     labelGrid[i][j].setText(String.valueOf(Controller.getGame().getBoard()[j][i].getValue()));
                     String textColor = Controller.getGame().getBoard()[i][j].getTextColor();
                     String backgroundColor = Controller.getGame().getBoard()[i][j].getBackground();
-                    String fontSize = Controller.getGame().getBoard()[i][j].getFontSize();
+                    String fontSize = getScaledFontSize(Controller.getGame().getBoard()[i][j].getFontSize());
                     labelGrid[j][i].setStyle("-fx-background-color: " + backgroundColor + "; -fx-text-fill: " + textColor + ";" +
-                            " -fx-font-size: " + fontSize + ";");
+                            " -fx-font-size: " + fontSize + ";" + getTileSizeStyle());
                     if (labelGrid[i][j].getText().equals("0"))
                         labelGrid[i][j].setText("");
 
@@ -662,8 +642,8 @@ public class UI {
 
         // Calculating the distance to move the tile and bringing the label to the front
         label.toFront();
-        double translateX = (endX - startX) * TILE_SIZE;
-        double translateY = (endY - startY) * TILE_SIZE;
+        double translateX = (endX - startX) * tileSize;
+        double translateY = (endY - startY) * tileSize;
 
         // Creating the TranslateTransition that moves the tile
         return getTranslateTransition(quick, label, translateX, translateY);
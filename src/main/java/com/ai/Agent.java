@@ -0,0 +1,27 @@
+package com.ai;
+
+/**
+ * A move policy for 2048 that plays from packed boards (see {@link com.engine.Board}).
+ * <p>
+ * An agent instance is only ever used by one thread at a time, so implementations may keep
+ * scratch state and random number generators in fields. Anything shared between instances,
+ * such as an {@link NTupleNetwork}, must be safe to read from several threads.
+ */
+public interface Agent {
+
+    /**
+     * Called before each game with a seed derived from the game's seed, so agents that use
+     * randomness play the same way every time a game is replayed.
+     *
+     * @param seed The seed for this game
+     */
+    default void reset(long seed) {}
+
+    /**
+     * Picks the next move.
+     *
+     * @param board The packed board
+     * @return The move code (see {@link com.engine.Board}), or -1 if no move is legal
+     */
+    int chooseMove(long board);
+}
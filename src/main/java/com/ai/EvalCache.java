@@ -0,0 +1,252 @@
+package com.ai;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, thread-safe cache from packed boards (or any other long key) to scores.
+ * <p>
+ * Entries live in primitive arrays split into independently locked shards, so threads
+ * working on different positions rarely wait for each other. Each shard is an
+ * open-addressed table with linear probing. All arrays are allocated up front from the
+ * memory budget, so the cache never grows past it. When a shard is full, the CLOCK
+ * algorithm picks the entry to drop: a hand sweeps the table, giving every entry read
+ * since the last sweep a second chance and evicting the first one that was not.
+ * <p>
+ * Keys can come from {@link com.engine.Board#pack} of {@link com._2048.Game#getIntBoard()}
+ * or from any packed board. Passing them through {@link com.engine.Symmetry#canonical}
+ * first lets symmetric positions share an entry.
+ */
+public class EvalCache {
+    private static final int BYTES_PER_SLOT = Long.BYTES + Float.BYTES + 1;
+
+    private final Shard[] shards;
+    private final int shardMask;
+    private final LongAdder hits = new LongAdder(), misses = new LongAdder(), evictions = new LongAdder();
+
+    /**
+     * Creates a cache that uses at most the given number of bytes for its tables.
+     *
+     * @param maxBytes The memory budget for the cache's tables
+     * @param shards   The number of independently locked shards; rounded up to a power of two
+     */
+    public EvalCache(long maxBytes, int shards) {
+        int shardCount = shards <= 1 ? 1 : Integer.highestOneBit(shards - 1) << 1;
+        long slots = maxBytes / BYTES_PER_SLOT / shardCount;
+        if (slots < 4)
+            throw new IllegalArgumentException("Memory budget too small for " + shardCount + " shards");
+        int slotsPerShard = (int) Math.min(Long.highestOneBit(slots), 1 << 30);
+        this.shards = new Shard[shardCount];
+        this.shardMask = shardCount - 1;
+        for (int i = 0; i < shardCount; i++)
+            this.shards[i] = new Shard(slotsPerShard);
+    }
+
+    /**
+     * Looks up a key.
+     *
+     * @param key The key, usually a packed board
+     * @return The cached score, or {@link Float#NaN} if the key is not cached
+     */
+    public float get(long key) {
+        long hash = mix(key);
+        float value = shards[(int) (hash >>> 40) & shardMask].get(key, hash);
+        if (Float.isNaN(value))
+            misses.increment();
+        else
+            hits.increment();
+        return value;
+    }
+
+    /**
+     * Stores a score, evicting another entry from the same shard if it is full.
+     *
+     * @param key   The key, usually a packed board
+     * @param value The score to store; must not be NaN
+     */
+    public void put(long key, float value) {
+        long hash = mix(key);
+        if (shards[(int) (hash >>> 40) & shardMask].put(key, hash, value))
+            evictions.increment();
+    }
+
+    /**
+     * Removes every entry. The statistics are kept.
+     */
+    public void clear() {
+        for (Shard shard : shards)
+            shard.clear();
+    }
+
+    public long getHits() { return hits.sum(); }
+
+    public long getMisses() { return misses.sum(); }
+
+    public long getEvictions() { return evictions.sum(); }
+
+    /**
+     * Returns the number of entries currently cached.
+     *
+     * @return The number of entries across all shards
+     */
+    public long size() {
+        long size = 0;
+        for (Shard shard : shards)
+            size += shard.size();
+        return size;
+    }
+
+    /**
+     * Returns the most entries the cache will hold before it starts evicting.
+     *
+     * @return The capacity across all shards
+     */
+    public long capacity() {
+        return (long) shards.length * shards[0].maxSize;
+    }
+
+    /**
+     * Returns the number of bytes allocated for the tables.
+     *
+     * @return The memory used by the cache's arrays
+     */
+    public long memoryBytes() {
+        return (long) shards.length * shards[0].keys.length * BYTES_PER_SLOT;
+    }
+
+    @Override
+    public String toString() {
+        long h = getHits(), m = getMisses();
+        return String.format("EvalCache{size=%d/%d, hits=%d, misses=%d, hitRate=%.3f, evictions=%d}",
+                size(), capacity(), h, m, h + m == 0 ? 0.0 : (double) h / (h + m), getEvictions());
+    }
+
+    /**
+     * Spreads the bits of a key (the MurmurHash3 finalizer), since packed boards differ
+     * mostly in a few nibbles.
+     */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        key *= 0xC4CEB9FE1A85EC53L;
+        return key ^ (key >>> 33);
+    }
+
+    /**
+     * One lock-protected open-addressed table. Key 0 marks an empty slot, so an actual
+     * key of 0 is kept in its own field.
+     */
+    private static final class Shard {
+        private final long[] keys;
+        private final float[] values;
+        private final byte[] referenced; // CLOCK reference bits
+        private final int mask, maxSize;
+        private int size, hand;
+        private boolean hasZero;
+        private float zeroValue;
+
+        Shard(int slots) {
+            this.keys = new long[slots];
+            this.values = new float[slots];
+            this.referenced = new byte[slots];
+            this.mask = slots - 1;
+            this.maxSize = slots - (slots >>> 2); // a 75% load factor keeps probes short
+        }
+
+        synchronized float get(long key, long hash) {
+            if (key == 0)
+                return hasZero ? zeroValue : Float.NaN;
+            for (int i = (int) hash & mask; ; i = (i + 1) & mask) {
+                long k = keys[i];
+                if (k == key) {
+                    referenced[i] = 1;
+                    return values[i];
+                }
+                if (k == 0)
+                    return Float.NaN;
+            }
+        }
+
+        /**
+         * Stores a value and returns whether an entry had to be evicted to make room.
+         */
+        synchronized boolean put(long key, long hash, float value) {
+            if (key == 0) {
+                hasZero = true;
+                zeroValue = value;
+                return false;
+            }
+            boolean evicted = false;
+            while (true) {
+                for (int i = (int) hash & mask; ; i = (i + 1) & mask) {
+                    long k = keys[i];
+                    if (k == key) {
+                        values[i] = value;
+                        referenced[i] = 1;
+                        return evicted;
+                    }
+                    if (k == 0) {
+                        if (size < maxSize) {
+                            keys[i] = key;
+                            values[i] = value;
+                            referenced[i] = 0;
+                            size++;
+                            return evicted;
+                        }
+                        break;
+                    }
+                }
+                // Full: evict one entry and probe again, since removal may shift entries
+                evict();
+                evicted = true;
+            }
+        }
+
+        private void evict() {
+            while (true) {
+                int i = hand;
+                hand = (hand + 1) & mask;
+                if (keys[i] == 0)
+                    continue;
+                if (referenced[i] != 0) {
+                    referenced[i] = 0;
+                    continue;
+                }
+                remove(i);
+                return;
+            }
+        }
+
+        /**
+         * Removes the entry in a slot by shifting later entries of the same probe run back.
+         */
+        private void remove(int hole) {
+            for (int j = (hole + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+                int home = (int) mix(keys[j]) & mask;
+                // The entry can fill the hole unless its home lies cyclically in (hole, j]
+                boolean stays = hole <= j ? (home > hole && home <= j) : (home > hole || home <= j);
+                if (!stays) {
+                    keys[hole] = keys[j];
+                    values[hole] = values[j];
+                    referenced[hole] = referenced[j];
+                    hole = j;
+                }
+            }
+            keys[hole] = 0;
+            referenced[hole] = 0;
+            size--;
+        }
+
+        synchronized void clear() {
+            Arrays.fill(keys, 0L);
+            Arrays.fill(referenced, (byte) 0);
+            size = 0;
+            hasZero = false;
+        }
+
+        synchronized int size() {
+            return size + (hasZero ? 1 : 0);
+        }
+    }
+}
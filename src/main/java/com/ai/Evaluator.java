@@ -0,0 +1,18 @@
+package com.ai;
+
+/**
+ * Scores a packed board (see {@link com.engine.Board}) from the point of view of the player.
+ * <p>
+ * Searches call this at their leaves, so implementations should be fast, allocation free,
+ * and safe to call from several threads at once.
+ */
+@FunctionalInterface
+public interface Evaluator {
+    /**
+     * Returns the estimated value of a board, where larger is better.
+     *
+     * @param board The packed board
+     * @return The estimated value of the board
+     */
+    float evaluate(long board);
+}
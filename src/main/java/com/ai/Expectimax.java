@@ -0,0 +1,154 @@
+package com.ai;
+
+import com.engine.Board;
+import com.engine.MoveSet;
+import com.engine.Moves;
+import com.engine.Symmetry;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * A depth-limited expectimax search: the player takes the move with the highest expected
+ * value, and the game is assumed to place a 2 or a 4 in each empty cell with the odds
+ * {@link com._2048.GameEngine#generateTile} uses. Each move is worth the score it gains plus
+ * the value of what follows; boards at the depth limit are scored by an {@link Evaluator}.
+ * <p>
+ * Branches whose probability falls below a cutoff are evaluated directly instead of being
+ * searched, and the values of chance nodes are cached per remaining depth under the
+ * canonical form of the board (see {@link Symmetry}), since the evaluators are symmetric.
+ * The cache outlives a search, so searching the position that follows a searched one starts
+ * warm. A search can also be made shallower than the instance's depth and stopped part way
+ * (see {@link #chooseMove(long, int, BooleanSupplier)}), which is how {@link HintEngine}
+ * deepens its analysis step by step and abandons it when the player moves.
+ * An instance keeps scratch state, so it must only be used by one thread at a time.
+ */
+public class Expectimax implements Agent {
+    private static final float FOUR_PROBABILITY = 0.2f; // A 4 appears one time in five
+    private static final float PROBABILITY_CUTOFF = 1e-4f;
+    private static final int CACHE_SHARDS = 1; // The cache is only used by the thread that owns the search
+    private static final BooleanSupplier NEVER = () -> false;
+
+    private final Evaluator evaluator;
+    private final int depth; // The number of player moves to look ahead
+    private final EvalCache[] caches; // [remaining depth] -> chance node values; null when caching is off
+    private final MoveSet[] moveSets; // [remaining depth] -> scratch space for the moves at that depth
+    private BooleanSupplier stop = NEVER; // Polled by the search in progress
+
+    /**
+     * @param evaluator  The evaluator for boards at the depth limit
+     * @param depth      The number of player moves to look ahead, at least 1
+     * @param cacheBytes The memory budget for cached chance node values, or 0 for no cache
+     */
+    public Expectimax(Evaluator evaluator, int depth, long cacheBytes) {
+        if (depth < 1)
+            throw new IllegalArgumentException("Depth must be at least 1: " + depth);
+        this.evaluator = evaluator;
+        this.depth = depth;
+        this.moveSets = new MoveSet[depth + 1];
+        for (int d = 0; d <= depth; d++)
+            moveSets[d] = new MoveSet();
+        if (cacheBytes > 0 && depth > 1) {
+            this.caches = new EvalCache[depth];
+            for (int d = 1; d < depth; d++)
+                caches[d] = new EvalCache(cacheBytes / (depth - 1), CACHE_SHARDS);
+        } else {
+            this.caches = null;
+        }
+    }
+
+    @Override
+    public int chooseMove(long board) {
+        return chooseMove(board, depth, NEVER);
+    }
+
+    /**
+     * Picks the next move with a search that may be shallower than this instance's depth,
+     * and that gives up as soon as {@code stop} returns true. The values cached before the
+     * search was stopped stay valid.
+     *
+     * @param board       The packed board
+     * @param searchDepth The number of player moves to look ahead, from 1 to the instance's depth
+     * @param stop        Polled at every player move of the search
+     * @return The move code, or -1 if no move is legal or the search was stopped
+     */
+    public int chooseMove(long board, int searchDepth, BooleanSupplier stop) {
+        if (searchDepth < 1 || searchDepth > depth)
+            throw new IllegalArgumentException("Search depth must be between 1 and " + depth + ": " + searchDepth);
+        MoveSet moves = moveSets[searchDepth];
+        int legal = Moves.moveAll(board, moves), best = -1;
+        float bestValue = Float.NEGATIVE_INFINITY;
+        this.stop = stop;
+        try {
+            for (int direction = 0; direction < 4; direction++) {
+                if ((legal & (1 << direction)) == 0)
+                    continue;
+                float value = moves.score(direction) + chance(moves.board(direction), searchDepth - 1, 1f);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = direction;
+                }
+            }
+            return best;
+        } catch (Stopped e) {
+            return -1;
+        } finally {
+            this.stop = NEVER;
+        }
+    }
+
+    /**
+     * Returns the expected value of a board after the player's move, before the new tile.
+     */
+    private float chance(long board, int remaining, float probability) {
+        if (remaining == 0 || probability < PROBABILITY_CUTOFF)
+            return evaluator.evaluate(board);
+        long key = 0;
+        if (caches != null) {
+            key = Symmetry.canonical(board);
+            float cached = caches[remaining].get(key);
+            if (!Float.isNaN(cached))
+                return cached;
+        }
+        int empty = Moves.emptyCells(board);
+        float twoProbability = probability * (1 - FOUR_PROBABILITY) / empty, fourProbability = probability * FOUR_PROBABILITY / empty;
+        float expected = 0;
+        for (int cell = 0; cell < Board.CELLS; cell++) {
+            if (Board.exponent(board, cell) != 0)
+                continue;
+            expected += (1 - FOUR_PROBABILITY) * max(Board.withExponent(board, cell, 1), remaining, twoProbability)
+                    + FOUR_PROBABILITY * max(Board.withExponent(board, cell, 2), remaining, fourProbability);
+        }
+        expected /= empty;
+        if (caches != null)
+            caches[remaining].put(key, expected);
+        return expected;
+    }
+
+    /**
+     * Returns the value of the best move from a board, or 0 if the game is lost.
+     */
+    private float max(long board, int remaining, float probability) {
+        if (stop.getAsBoolean())
+            throw Stopped.INSTANCE;
+        MoveSet moves = moveSets[remaining];
+        int legal = Moves.moveAll(board, moves);
+        float best = 0;
+        for (int direction = 0; direction < 4; direction++) {
+            if ((legal & (1 << direction)) != 0)
+                best = Math.max(best, moves.score(direction) + chance(moves.board(direction), remaining - 1, probability));
+        }
+        return best;
+    }
+
+    /**
+     * Unwinds a stopped search. Chance nodes are cached only once fully computed, so nothing
+     * half-done is left behind.
+     */
+    private static final class Stopped extends RuntimeException {
+        static final Stopped INSTANCE = new Stopped();
+
+        private Stopped() {
+            super(null, null, false, false);
+        }
+    }
+}
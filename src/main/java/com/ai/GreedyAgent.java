@@ -0,0 +1,45 @@
+package com.ai;
+
+import com.engine.MoveSet;
+import com.engine.Moves;
+
+/**
+ * Plays the move with the best one-ply value: the score the move gains plus the evaluator's
+ * value of the board after it, before the new tile appears. With an evaluator that always
+ * returns 0 this simply takes the biggest merge; with an {@link NTupleNetwork} it is the
+ * policy the network was trained with (see {@link TdTrainer}).
+ */
+public class GreedyAgent implements Agent {
+    private final Evaluator evaluator;
+    private final MoveSet moves = new MoveSet();
+
+    /**
+     * Creates an agent that only looks at the score of each move.
+     */
+    public GreedyAgent() {
+        this(board -> 0);
+    }
+
+    /**
+     * @param evaluator The value of the board after a move
+     */
+    public GreedyAgent(Evaluator evaluator) {
+        this.evaluator = evaluator;
+    }
+
+    @Override
+    public int chooseMove(long board) {
+        int legal = Moves.moveAll(board, moves), best = -1;
+        float bestValue = Float.NEGATIVE_INFINITY;
+        for (int direction = 0; direction < 4; direction++) {
+            if ((legal & (1 << direction)) == 0)
+                continue;
+            float value = moves.score(direction) + evaluator.evaluate(moves.board(direction));
+            if (value > bestValue) {
+                bestValue = value;
+                best = direction;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,64 @@
+package com.ai;
+
+import com.engine.Moves;
+
+/**
+ * A hand-tuned evaluator that rewards empty cells, possible merges and monotonic rows and
+ * columns, and penalises large tiles scattered around the board.
+ * <p>
+ * Every possible row is scored once, when the class is loaded, so evaluating a board is
+ * eight table lookups: its four rows and the four rows of its transpose. The weights are
+ * the ones commonly used for expectimax search on 2048.
+ */
+public class HeuristicEvaluator implements Evaluator {
+    private static final float LOST_PENALTY = 200000f; // Keeps values positive, so a lost board (0) is worst
+    private static final float MONOTONICITY_POWER = 4f, MONOTONICITY_WEIGHT = 47f;
+    private static final float SUM_POWER = 3.5f, SUM_WEIGHT = 11f;
+    private static final float MERGES_WEIGHT = 700f, EMPTY_WEIGHT = 270f;
+    private static final float[] ROW_VALUE = new float[1 << 16];
+
+    static {
+        int[] line = new int[4];
+        for (int row = 0; row < ROW_VALUE.length; row++) {
+            for (int c = 0; c < 4; c++)
+                line[c] = (row >>> (c << 2)) & 0xF;
+            float sum = 0;
+            int empty = 0, merges = 0, previous = 0, run = 0;
+            for (int rank : line) {
+                sum += (float) Math.pow(rank, SUM_POWER);
+                if (rank == 0) {
+                    empty++;
+                } else {
+                    if (previous == rank) {
+                        run++;
+                    } else if (run > 0) {
+                        merges += 1 + run;
+                        run = 0;
+                    }
+                    previous = rank;
+                }
+            }
+            if (run > 0)
+                merges += 1 + run;
+            float decreasing = 0, increasing = 0;
+            for (int c = 1; c < 4; c++) {
+                float a = (float) Math.pow(line[c - 1], MONOTONICITY_POWER), b = (float) Math.pow(line[c], MONOTONICITY_POWER);
+                if (line[c - 1] > line[c])
+                    decreasing += a - b;
+                else
+                    increasing += b - a;
+            }
+            ROW_VALUE[row] = LOST_PENALTY + EMPTY_WEIGHT * empty + MERGES_WEIGHT * merges
+                    - MONOTONICITY_WEIGHT * Math.min(decreasing, increasing) - SUM_WEIGHT * sum;
+        }
+    }
+
+    @Override
+    public float evaluate(long board) {
+        long transposed = Moves.transpose(board);
+        float value = 0;
+        for (int shift = 0; shift < 64; shift += 16)
+            value += ROW_VALUE[(int) (board >>> shift) & 0xFFFF] + ROW_VALUE[(int) (transposed >>> shift) & 0xFFFF];
+        return value;
+    }
+}
@@ -0,0 +1,147 @@
+package com.ai;
+
+/**
+ * Works out a suggested move for the position on screen, on a background thread, while the
+ * UI is still animating the move that led to it.
+ * <p>
+ * {@link #analyse} hands the worker a new position and returns at once. The worker runs an
+ * {@link Expectimax} search one depth at a time, from 1 up to the engine's depth, and
+ * reports the best move after each depth, so a hint appears within a millisecond and then
+ * firms up. A new position, or {@link #cancel()}, stops the search in progress at its next
+ * node. The search keeps its cache between positions, so after the player follows a hint
+ * the next analysis finds much of its tree already valued.
+ * <p>
+ * Hints are delivered on the worker thread; the listener hands them to the UI thread and
+ * checks that the board is still the one on screen.
+ */
+public final class HintEngine implements AutoCloseable {
+    public static final int DEFAULT_DEPTH = 3;
+    public static final long DEFAULT_CACHE_BYTES = 32L * 1024 * 1024;
+
+    /**
+     * Receives the hints for a position.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * @param board The packed board the hint is for
+         * @param move  The suggested move code (see {@link com.engine.Board})
+         * @param depth The depth searched so far
+         */
+        void hint(long board, int move, int depth);
+    }
+
+    private final Expectimax search; // Only used by the worker
+    private final OpeningBook book; // Consulted before searching, or null
+    private final int depth;
+    private final Listener listener;
+    private final Thread worker;
+    private long board; // The position to analyse, guarded by this
+    private boolean pending; // Whether the worker has yet to pick up the position, guarded by this
+    private volatile int generation; // Bumped by every new position and cancellation
+    private long lastBoard; // The last position analysed to full depth, and its move; worker only
+    private int lastMove = -1;
+
+    /**
+     * Creates an engine that searches with the heuristic evaluator.
+     *
+     * @param listener Receives the hints
+     */
+    public HintEngine(Listener listener) {
+        this(null, listener);
+    }
+
+    /**
+     * Creates an engine that plays from an opening book and searches with the heuristic
+     * evaluator once the game leaves it.
+     *
+     * @param book     The opening book, or null for none
+     * @param listener Receives the hints
+     */
+    public HintEngine(OpeningBook book, Listener listener) {
+        this(new HeuristicEvaluator(), DEFAULT_DEPTH, DEFAULT_CACHE_BYTES, book, listener);
+    }
+
+    /**
+     * @param evaluator  The evaluator for boards at the depth limit
+     * @param depth      The deepest search made for a position
+     * @param cacheBytes The memory budget for the search's cache
+     * @param book       The opening book, or null for none
+     * @param listener   Receives the hints
+     */
+    public HintEngine(Evaluator evaluator, int depth, long cacheBytes, OpeningBook book, Listener listener) {
+        this.search = new Expectimax(evaluator, depth, cacheBytes);
+        this.book = book;
+        this.depth = depth;
+        this.listener = listener;
+        this.worker = new Thread(this::work, "hint-worker");
+        worker.setDaemon(true);
+        worker.setPriority(Thread.MIN_PRIORITY); // Never competes with the UI for a core
+        worker.start();
+    }
+
+    /**
+     * Starts analysing a position, abandoning any earlier one.
+     *
+     * @param board The packed board
+     */
+    public synchronized void analyse(long board) {
+        this.board = board;
+        this.pending = true;
+        generation++;
+        notifyAll();
+    }
+
+    /**
+     * Stops the analysis in progress, as soon as the player makes a move.
+     */
+    public synchronized void cancel() {
+        pending = false;
+        generation++;
+    }
+
+    @Override
+    public void close() {
+        worker.interrupt();
+        cancel();
+    }
+
+    private void work() {
+        try {
+            while (true) {
+                long position;
+                int current;
+                synchronized (this) {
+                    while (!pending)
+                        wait();
+                    pending = false;
+                    position = board;
+                    current = generation;
+                }
+                if (position == lastBoard && lastMove >= 0) {
+                    listener.hint(position, lastMove, depth);
+                    continue;
+                }
+                int known = book == null ? -1 : book.bestMove(position);
+                if (known >= 0) {
+                    listener.hint(position, known, Math.max(depth, book.depth()));
+                    continue;
+                }
+                for (int d = 1; d <= depth && generation == current; d++) {
+                    int move = search.chooseMove(position, d, () -> generation != current);
+                    if (move < 0)
+                        break; // Stopped, or no move is legal
+                    if (d == depth) {
+                        lastBoard = position;
+                        lastMove = move;
+                    }
+                    listener.hint(position, move, d);
+                }
+            }
+        } catch (InterruptedException e) {
+            // Closed
+        } catch (RuntimeException e) {
+            System.err.println("Hint engine stopped: " + e);
+        }
+    }
+}
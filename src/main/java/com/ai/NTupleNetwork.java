@@ -0,0 +1,292 @@
+package com.ai;
+
+import com.engine.Board;
+import com.engine.Symmetry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An n-tuple network that values a packed board by summing looked-up weights.
+ * <p>
+ * Each tuple is a list of cells. The exponents in those cells, 4 bits each, form an index
+ * into that tuple's weight table, so a 6-tuple has 16^6 weights. Every tuple is applied to
+ * all 8 rotations and reflections of the board, which share the same table.
+ * <p>
+ * Weight tables are {@link FloatBuffer}s. A network made with {@link #create} wraps plain
+ * {@code float[]} arrays and can be trained. A network opened with {@link #load} maps the
+ * file read-only, so large tables are available immediately and the page cache is shared
+ * by every thread and process that loads the same file.
+ */
+public class NTupleNetwork implements Evaluator {
+    /**
+     * The four 6-tuples commonly used for 2048 (two straight "rectangles" and two
+     * "L"-shaped ones). Together they need 4 * 16^6 weights, or 256MB.
+     */
+    public static final int[][] STANDARD_TUPLES = {
+            {0, 1, 2, 3, 4, 5},
+            {4, 5, 6, 7, 8, 9},
+            {0, 1, 2, 4, 5, 6},
+            {4, 5, 6, 8, 9, 10}
+    };
+
+    /**
+     * A small set of 4-tuples (the rows and squares) for quick experiments.
+     * They need 4 * 16^4 weights, or 1MB.
+     */
+    public static final int[][] SMALL_TUPLES = {
+            {0, 1, 2, 3},
+            {4, 5, 6, 7},
+            {0, 1, 4, 5},
+            {1, 2, 5, 6}
+    };
+
+    private static final int MAGIC = 0x4E545550; // "NTUP"
+    private static final int VERSION = 1;
+    private static final int TABLE_ALIGNMENT = 64;
+    private static final int SYMMETRIES = Symmetry.COUNT;
+
+    private final int[][] tuples; // The cells of each tuple, as given
+    private final int[][] patterns; // The cells of each tuple under each symmetry, [tuple * 8 + symmetry]
+    private final FloatBuffer[] tables; // One weight table per tuple
+
+    private NTupleNetwork(int[][] tuples, FloatBuffer[] tables) {
+        this.tuples = new int[tuples.length][];
+        this.patterns = new int[tuples.length * SYMMETRIES][];
+        this.tables = tables;
+        for (int t = 0; t < tuples.length; t++) {
+            this.tuples[t] = tuples[t].clone();
+            for (int s = 0; s < SYMMETRIES; s++) {
+                int[] cells = new int[tuples[t].length];
+                for (int k = 0; k < cells.length; k++)
+                    cells[k] = Symmetry.mapCell(tuples[t][k], s);
+                this.patterns[t * SYMMETRIES + s] = cells;
+            }
+        }
+    }
+
+    /**
+     * Creates a network with zeroed, writable weight tables on the heap.
+     *
+     * @param tuples The cells of each tuple (cell index = row * 4 + col)
+     * @return The new network
+     */
+    public static NTupleNetwork create(int[][] tuples) {
+        FloatBuffer[] tables = new FloatBuffer[tuples.length];
+        for (int t = 0; t < tuples.length; t++)
+            tables[t] = FloatBuffer.wrap(new float[tableSize(tuples[t])]);
+        return new NTupleNetwork(tuples, tables);
+    }
+
+    /**
+     * Opens a network saved with {@link #save} by memory-mapping its weight tables read-only.
+     *
+     * @param file The weights file
+     * @return The mapped network
+     * @throws IOException If the file cannot be read or is not a weights file
+     */
+    public static NTupleNetwork load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(3 * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            header.flip();
+            if (header.remaining() < header.capacity() || header.getInt() != MAGIC)
+                throw new IOException("Not an n-tuple weights file: " + file);
+            int version = header.getInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported weights file version " + version + ": " + file);
+            int count = header.getInt();
+
+            int[][] tuples = new int[count][];
+            long position = header.capacity();
+            for (int t = 0; t < count; t++) {
+                ByteBuffer length = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                channel.read(length, position);
+                int n = length.flip().getInt();
+                if (n <= 0 || n > 7)
+                    throw new IOException("Invalid tuple length " + n + " in " + file);
+                ByteBuffer cells = ByteBuffer.allocate(n * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                channel.read(cells, position + Integer.BYTES);
+                cells.flip();
+                tuples[t] = new int[n];
+                for (int k = 0; k < n; k++)
+                    tuples[t][k] = cells.getInt();
+                position += (long) (n + 1) * Integer.BYTES;
+            }
+
+            FloatBuffer[] tables = new FloatBuffer[count];
+            position = align(position);
+            for (int t = 0; t < count; t++) {
+                long bytes = (long) tableSize(tuples[t]) * Float.BYTES;
+                if (position + bytes > channel.size())
+                    throw new IOException("Truncated weights file: " + file);
+                // Mapping each table separately keeps every mapping under the 2GB limit
+                tables[t] = channel.map(FileChannel.MapMode.READ_ONLY, position, bytes)
+                        .order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+                position = align(position + bytes);
+            }
+            return new NTupleNetwork(tuples, tables);
+        }
+    }
+
+    /**
+     * Writes the network to a file that {@link #load} can map. The file is written next to
+     * the target and then moved into place, so readers never see a partial file.
+     *
+     * @param file The file to write
+     * @throws IOException If the file cannot be written
+     */
+    public void save(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            int headerInts = 3;
+            for (int[] tuple : tuples)
+                headerInts += tuple.length + 1;
+            ByteBuffer header = ByteBuffer.allocate((int) align((long) headerInts * Integer.BYTES))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(tuples.length);
+            for (int[] tuple : tuples) {
+                header.putInt(tuple.length);
+                for (int cell : tuple)
+                    header.putInt(cell);
+            }
+            header.clear();
+            channel.write(header);
+
+            ByteBuffer chunk = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            for (FloatBuffer table : tables) {
+                FloatBuffer source = table.duplicate().clear();
+                while (source.hasRemaining()) {
+                    chunk.clear();
+                    FloatBuffer floats = chunk.asFloatBuffer();
+                    int n = Math.min(floats.remaining(), source.remaining());
+                    floats.put(source.slice(source.position(), n));
+                    source.position(source.position() + n);
+                    chunk.limit(n * Float.BYTES);
+                    while (chunk.hasRemaining())
+                        channel.write(chunk);
+                }
+                long padding = align(channel.position()) - channel.position();
+                if (padding > 0)
+                    channel.write(ByteBuffer.allocate((int) padding));
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Returns a view of this network that shares its weights but cannot modify them.
+     *
+     * @return A read-only view of the network
+     */
+    public NTupleNetwork asReadOnly() {
+        FloatBuffer[] views = new FloatBuffer[tables.length];
+        for (int t = 0; t < tables.length; t++)
+            views[t] = tables[t].asReadOnlyBuffer();
+        return new NTupleNetwork(tuples, views);
+    }
+
+    /**
+     * Returns the value of a board as the sum of one weight per tuple and symmetry.
+     *
+     * @param board The packed board
+     * @return The estimated value of the board
+     */
+    @Override
+    public float evaluate(long board) {
+        float sum = 0;
+        for (int p = 0; p < patterns.length; p++)
+            sum += tables[p >>> 3].get(index(board, patterns[p]));
+        return sum;
+    }
+
+    /**
+     * Adds a delta to every weight that contributes to the value of a board.
+     * <p>
+     * No locks are taken. Training threads may update the same weights at the same time,
+     * in which case some updates are lost; with sparse updates this is rare and harmless.
+     *
+     * @param board The packed board
+     * @param delta The amount to add to each contributing weight
+     * @throws java.nio.ReadOnlyBufferException If the network was loaded from a file
+     */
+    public void update(long board, float delta) {
+        for (int p = 0; p < patterns.length; p++) {
+            FloatBuffer table = tables[p >>> 3];
+            int index = index(board, patterns[p]);
+            table.put(index, table.get(index) + delta);
+        }
+    }
+
+    /**
+     * Copies the weights into writable heap tables, for example to continue training a
+     * network that was loaded from a file.
+     *
+     * @return A writable copy of the network
+     */
+    public NTupleNetwork toHeap() {
+        FloatBuffer[] copies = new FloatBuffer[tables.length];
+        for (int t = 0; t < tables.length; t++) {
+            float[] weights = new float[tables[t].capacity()];
+            tables[t].get(0, weights);
+            copies[t] = FloatBuffer.wrap(weights);
+        }
+        return new NTupleNetwork(tuples, copies);
+    }
+
+    /**
+     * Returns the number of weights looked up by a single evaluation.
+     *
+     * @return The number of tuples multiplied by the number of symmetries
+     */
+    public int featureCount() {
+        return patterns.length;
+    }
+
+    /**
+     * Returns the cells of each tuple.
+     *
+     * @return A copy of the tuples this network was built with
+     */
+    public int[][] getTuples() {
+        int[][] copy = new int[tuples.length][];
+        for (int t = 0; t < tuples.length; t++)
+            copy[t] = tuples[t].clone();
+        return copy;
+    }
+
+    /**
+     * Builds a table index from the exponents of the given cells.
+     *
+     * @param board The packed board
+     * @param cells The cells of the tuple
+     * @return The index into the tuple's weight table
+     */
+    static int index(long board, int[] cells) {
+        int index = 0;
+        for (int cell : cells)
+            index = (index << 4) | Board.exponent(board, cell);
+        return index;
+    }
+
+    private static int tableSize(int[] tuple) {
+        if (tuple.length == 0 || tuple.length > 7)
+            throw new IllegalArgumentException("Tuples must have between 1 and 7 cells");
+        for (int cell : tuple)
+            if (cell < 0 || cell >= Board.CELLS)
+                throw new IllegalArgumentException("Invalid cell " + cell);
+        return 1 << (4 * tuple.length);
+    }
+
+    private static long align(long position) {
+        return (position + TABLE_ALIGNMENT - 1) & -TABLE_ALIGNMENT;
+    }
+}
@@ -0,0 +1,174 @@
+package com.ai;
+
+import com.engine.Symmetry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The best moves of early-game 4x4 positions, as searched ahead of time by
+ * {@link OpeningBookGenerator}, memory-mapped read-only from a file.
+ * <p>
+ * Symmetric positions share one entry, keyed by the canonical board (see
+ * {@link Symmetry#canonical}), and the move is stored as it applies to that board. The file
+ * is a header, then the keys sorted in ascending order, then one move code per key, so a
+ * lookup is a binary search over the mapped keys: about 20 probes for a million positions,
+ * with nothing read into the heap when the book is opened. Lookups read the mapping without
+ * any locking, so one book can be shared by every thread.
+ */
+public final class OpeningBook {
+    private static final int MAGIC = 0x4B4F4F42; // "BOOK"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int MAX_POSITIONS = Integer.MAX_VALUE / Long.BYTES; // Keeps the key mapping under the 2GB limit
+
+    private final int plies, depth;
+    private final LongBuffer keys;
+    private final ByteBuffer moves;
+
+    private OpeningBook(int plies, int depth, LongBuffer keys, ByteBuffer moves) {
+        this.plies = plies;
+        this.depth = depth;
+        this.keys = keys;
+        this.moves = moves;
+    }
+
+    /**
+     * Opens a book written by {@link OpeningBookGenerator} by memory-mapping it read-only.
+     *
+     * @param file The book file
+     * @return The mapped book
+     * @throws IOException If the file cannot be read or is not an opening book
+     */
+    public static OpeningBook load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC)
+                throw new IOException("Not an opening book file: " + file);
+            int version = header.getInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported opening book version " + version + ": " + file);
+            int plies = header.getInt(), depth = header.getInt(), count = header.getInt();
+            if (count < 0 || count > MAX_POSITIONS || channel.size() < HEADER_BYTES + (long) count * (Long.BYTES + 1))
+                throw new IOException("Truncated or corrupt opening book: " + file);
+            return new OpeningBook(plies, depth,
+                    channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, (long) count * Long.BYTES)
+                            .order(ByteOrder.LITTLE_ENDIAN).asLongBuffer(),
+                    channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + (long) count * Long.BYTES, count));
+        }
+    }
+
+    /**
+     * Writes a book file. The file is written next to the target and moved into place, so
+     * readers never see a partial file.
+     *
+     * @param file  The file to write
+     * @param plies The number of moves from the opening the book covers
+     * @param depth The search depth the moves were chosen with
+     * @param keys  The canonical positions, sorted in ascending order without duplicates
+     * @param moves The move code for each position, as it applies to the canonical board
+     */
+    static void write(Path file, int plies, int depth, long[] keys, byte[] moves) throws IOException {
+        if (keys.length != moves.length || keys.length > MAX_POSITIONS)
+            throw new IllegalArgumentException("Expected one move per position, at most " + MAX_POSITIONS);
+        for (int i = 1; i < keys.length; i++)
+            if (keys[i - 1] >= keys[i])
+                throw new IllegalArgumentException("Positions must be sorted and distinct");
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(plies).putInt(depth).putInt(keys.length);
+            header.clear();
+            channel.write(header, 0);
+            channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES, (long) keys.length * Long.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().put(keys);
+            channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES + (long) keys.length * Long.BYTES,
+                    moves.length).put(moves);
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Returns the number of moves from the opening the book covers.
+     */
+    public int plies() {
+        return plies;
+    }
+
+    /**
+     * Returns the search depth the moves were chosen with.
+     */
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     * Returns the number of positions in the book, counting symmetric ones once.
+     */
+    public int count() {
+        return keys.capacity();
+    }
+
+    /**
+     * Returns the book move for a position.
+     *
+     * @param board The packed 4x4 board
+     * @return The move code (see {@link com.engine.Board}), or -1 if the position is not in
+     *         the book or has no legal move
+     */
+    public int bestMove(long board) {
+        int symmetry = Symmetry.canonicalSymmetry(board);
+        int i = find(Symmetry.apply(board, symmetry));
+        int move = i < 0 ? -1 : moves.get(i);
+        // The stored move applies to the canonical board; the inverse symmetry maps it back
+        return move < 0 ? -1 : Symmetry.mapMove(move, Symmetry.inverse(symmetry));
+    }
+
+    /**
+     * Returns an agent that plays the book move where there is one and asks the given
+     * agent everywhere else.
+     *
+     * @param fallback The agent for positions outside the book
+     * @return The combined agent
+     */
+    public Agent withFallback(Agent fallback) {
+        return new Agent() {
+            @Override
+            public void reset(long seed) {
+                fallback.reset(seed);
+            }
+
+            @Override
+            public int chooseMove(long board) {
+                int move = bestMove(board);
+                return move >= 0 ? move : fallback.chooseMove(board);
+            }
+        };
+    }
+
+    private int find(long key) {
+        int low = 0, high = keys.capacity() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long probe = keys.get(mid);
+            if (probe < key)
+                low = mid + 1;
+            else if (probe > key)
+                high = mid - 1;
+            else
+                return mid;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,226 @@
+package com.ai;
+
+import com.engine.Board;
+import com.engine.Moves;
+import com.engine.Symmetry;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Searches the early-game 4x4 positions deeply ahead of time and writes their best moves as
+ * an {@link OpeningBook}.
+ * <p>
+ * The book follows its own line. Layer 0 holds every opening the game can deal: two tiles,
+ * each a 2 or a 4, on an empty board. For each position in a layer an {@link Expectimax}
+ * search picks the best move, and every tile that can appear after that move gives a
+ * position of the next layer. Positions the book would never reach by its own moves are left
+ * out, which keeps the first ten moves to about half a million positions, a small fraction
+ * of those every move would lead to. Every position is stored by its canonical board, so the
+ * 8 symmetric images of a position are searched once.
+ * <p>
+ * Each layer is split into chunks searched on a thread pool, one search and cache per thread.
+ */
+public class OpeningBookGenerator {
+    public static final int DEFAULT_PLIES = 10;
+    public static final int DEFAULT_DEPTH = 6;
+
+    private static final int CHUNK = 256; // Positions per task
+    private static final long CACHE_BYTES = 32L * 1024 * 1024; // Per thread
+
+    private final int plies, depth, threads;
+    private final long[][] layers; // Sorted canonical positions, indexed by the moves made
+    private final byte[][] moves; // The best move of each position in layers, on the canonical board
+
+    /**
+     * @param plies   The number of moves from the opening to cover
+     * @param depth   The search depth to choose the moves with
+     * @param threads The number of threads to search on
+     */
+    public OpeningBookGenerator(int plies, int depth, int threads) {
+        if (plies < 1 || depth < 1)
+            throw new IllegalArgumentException("The book must cover a move and search at least one deep");
+        this.plies = plies;
+        this.depth = depth;
+        this.threads = threads;
+        this.layers = new long[plies][];
+        this.moves = new byte[plies][];
+    }
+
+    /**
+     * Searches every position on the book's line.
+     *
+     * @return The number of positions kept, those with a legal move
+     */
+    public long generate() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        ThreadLocal<Expectimax> searches = ThreadLocal.withInitial(
+                () -> new Expectimax(new HeuristicEvaluator(), depth, CACHE_BYTES));
+        try {
+            long[] pending = openings();
+            long count = 0;
+            for (int ply = 0; ply < plies; ply++) {
+                long[] positions = withoutEarlier(pending, ply);
+                byte[] best = new byte[positions.length];
+                List<Future<long[]>> chunks = new ArrayList<>();
+                for (int from = 0; from < positions.length; from += CHUNK) {
+                    int start = from, end = Math.min(positions.length, from + CHUNK);
+                    chunks.add(pool.submit(() -> search(searches.get(), positions, best, start, end)));
+                }
+                List<long[]> next = new ArrayList<>();
+                for (Future<long[]> chunk : chunks)
+                    next.add(get(chunk));
+                // A position with no legal move has nothing to store, so it stays out of the book
+                int kept = 0;
+                for (int i = 0; i < positions.length; i++) {
+                    if (best[i] >= 0) {
+                        positions[kept] = positions[i];
+                        best[kept++] = best[i];
+                    }
+                }
+                layers[ply] = Arrays.copyOf(positions, kept);
+                moves[ply] = Arrays.copyOf(best, kept);
+                count += kept;
+                System.out.printf("move %d: %d positions%n", ply + 1, kept);
+                pending = distinct(next);
+            }
+            return count;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Writes the searched positions to a book file.
+     *
+     * @param file The file to write
+     */
+    public void write(Path file) throws IOException {
+        int count = 0;
+        for (long[] layer : layers)
+            count += layer.length;
+        long[] keys = new long[count];
+        byte[] best = new byte[count];
+        // Each layer is sorted and no position is in two layers, so merging the layers sorts the book
+        int[] next = new int[plies];
+        for (int n = 0; n < count; n++) {
+            int from = -1;
+            for (int ply = 0; ply < plies; ply++)
+                if (next[ply] < layers[ply].length
+                        && (from < 0 || layers[ply][next[ply]] < layers[from][next[from]]))
+                    from = ply;
+            keys[n] = layers[from][next[from]];
+            best[n] = moves[from][next[from]++];
+        }
+        OpeningBook.write(file, plies, depth, keys, best);
+    }
+
+    /**
+     * Picks the best move of each position in [start, end) and returns the positions that
+     * follow it, canonical, sorted and without duplicates.
+     */
+    private static long[] search(Expectimax search, long[] positions, byte[] best, int start, int end) {
+        long[] next = new long[(end - start) * Board.CELLS * 2];
+        int n = 0;
+        for (int i = start; i < end; i++) {
+            long board = positions[i];
+            int move = search.chooseMove(board);
+            best[i] = (byte) move;
+            if (move < 0)
+                continue;
+            long moved = Moves.move(board, move);
+            for (int cell = 0; cell < Board.CELLS; cell++) {
+                if (Board.exponent(moved, cell) == 0) {
+                    next[n++] = Symmetry.canonical(moved | 1L << (cell << 2));
+                    next[n++] = Symmetry.canonical(moved | 2L << (cell << 2));
+                }
+            }
+        }
+        return distinct(List.of(Arrays.copyOf(next, n)));
+    }
+
+    /**
+     * Returns every opening the game can deal, canonical, sorted and without duplicates.
+     */
+    private static long[] openings() {
+        long[] openings = new long[Board.CELLS * (Board.CELLS - 1) * 2];
+        int n = 0;
+        for (int first = 0; first < Board.CELLS; first++)
+            for (int second = first + 1; second < Board.CELLS; second++)
+                for (int a = 1; a <= 2; a++)
+                    for (int b = 1; b <= 2; b++)
+                        openings[n++] = Symmetry.canonical(((long) a << (first << 2)) | ((long) b << (second << 2)));
+        return distinct(List.of(Arrays.copyOf(openings, n)));
+    }
+
+    /**
+     * Drops the positions an earlier layer already holds; a tile sum can be reached in a
+     * different number of moves from a different opening.
+     */
+    private long[] withoutEarlier(long[] positions, int ply) {
+        int n = 0;
+        next:
+        for (long board : positions) {
+            for (int earlier = 0; earlier < ply; earlier++)
+                if (Arrays.binarySearch(layers[earlier], board) >= 0)
+                    continue next;
+            positions[n++] = board;
+        }
+        return Arrays.copyOf(positions, n);
+    }
+
+    private static long[] distinct(List<long[]> chunks) {
+        int size = 0;
+        for (long[] chunk : chunks)
+            size += chunk.length;
+        long[] all = new long[size];
+        int n = 0;
+        for (long[] chunk : chunks) {
+            System.arraycopy(chunk, 0, all, n, chunk.length);
+            n += chunk.length;
+        }
+        Arrays.sort(all);
+        n = 0;
+        for (int i = 0; i < all.length; i++)
+            if (n == 0 || all[i] != all[n - 1])
+                all[n++] = all[i];
+        return Arrays.copyOf(all, n);
+    }
+
+    private static <T> T get(Future<T> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Generating the opening book failed", e.getCause());
+        }
+    }
+
+    /**
+     * Generates an opening book.
+     * <p>
+     * Usage: {@code OpeningBookGenerator [moves] [depth] [file] [threads]}, for example
+     * {@code OpeningBookGenerator 10 6 opening.book} for the first 10 moves searched 6 deep, which
+     * takes about a minute on one core and writes a 4.5MB file.
+     */
+    public static void main(String[] args) throws Exception {
+        int plies = args.length >= 1 ? Integer.parseInt(args[0]) : DEFAULT_PLIES;
+        int depth = args.length >= 2 ? Integer.parseInt(args[1]) : DEFAULT_DEPTH;
+        Path file = Path.of(args.length >= 3 ? args[2] : "opening.book");
+        int threads = args.length >= 4 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        long begin = System.nanoTime();
+        OpeningBookGenerator generator = new OpeningBookGenerator(plies, depth, threads);
+        long count = generator.generate();
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        generator.write(file);
+        System.out.printf("first %d moves, depth %d: %d positions in %.1f s%n", plies, depth, count, seconds);
+        System.out.println("wrote " + file);
+    }
+}
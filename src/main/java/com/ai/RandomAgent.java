@@ -0,0 +1,30 @@
+package com.ai;
+
+import com.engine.MoveSet;
+import com.engine.Moves;
+
+import java.util.SplittableRandom;
+
+/**
+ * Plays a uniformly random legal move. A baseline every other agent should beat.
+ */
+public class RandomAgent implements Agent {
+    private final MoveSet moves = new MoveSet();
+    private SplittableRandom rand = new SplittableRandom();
+
+    @Override
+    public void reset(long seed) {
+        rand = new SplittableRandom(seed);
+    }
+
+    @Override
+    public int chooseMove(long board) {
+        int legal = Moves.moveAll(board, moves);
+        if (legal == 0)
+            return -1;
+        // Pick the n-th set bit of the legal move mask
+        for (int n = rand.nextInt(Integer.bitCount(legal)); n > 0; n--)
+            legal &= legal - 1;
+        return Integer.numberOfTrailingZeros(legal);
+    }
+}
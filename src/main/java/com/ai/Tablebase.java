@@ -0,0 +1,253 @@
+package com.ai;
+
+import com.engine.PackedMoves;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The exact values of every reachable position of a small board, as solved by
+ * {@link TablebaseGenerator}, memory-mapped read-only from a file.
+ * <p>
+ * The file is an open-addressing hash table with linear probing: a header, then one
+ * {@code long} key per slot, then one {@code double} value per slot. A key is a packed
+ * position (see {@link com.engine.PackedMoves}); 0 marks an empty slot, which never clashes
+ * with a position because every position holds at least two tiles. The table is at most
+ * half full, so a lookup touches one or two slots. Lookups read the mapping without any
+ * locking, so one tablebase can be shared by every thread.
+ * <p>
+ * As an {@link Evaluator} it gives the exact value of the board after a move, before the
+ * new tile appears, which is what searches and greedy agents compare their estimates to.
+ */
+public final class Tablebase implements Evaluator {
+    static final double FOUR_PROBABILITY = 0.2; // A 4 appears one time in five
+
+    private static final int MAGIC = 0x53414254; // "TBAS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int MAX_SLOTS = 1 << 27; // Keeps the key mapping under the 2GB limit
+
+    private final PackedMoves moves;
+    private final long count;
+    private final int mask;
+    private final LongBuffer keys;
+    private final DoubleBuffer values;
+
+    private Tablebase(PackedMoves moves, long count, LongBuffer keys, DoubleBuffer values) {
+        this.moves = moves;
+        this.count = count;
+        this.mask = keys.capacity() - 1;
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * Opens a tablebase written by {@link TablebaseGenerator} by memory-mapping it read-only.
+     *
+     * @param file The tablebase file
+     * @return The mapped tablebase
+     * @throws IOException If the file cannot be read or is not a tablebase
+     */
+    public static Tablebase load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC)
+                throw new IOException("Not a tablebase file: " + file);
+            int version = header.getInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported tablebase version " + version + ": " + file);
+            int size = header.getInt(), maxExponent = header.getInt(), slots = header.getInt();
+            long count = header.getLong();
+            if (Integer.bitCount(slots) != 1 || slots > MAX_SLOTS
+                    || channel.size() < HEADER_BYTES + (long) slots * (Long.BYTES + Double.BYTES))
+                throw new IOException("Truncated or corrupt tablebase: " + file);
+            return new Tablebase(PackedMoves.of(size, maxExponent), count,
+                    channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, (long) slots * Long.BYTES)
+                            .order(ByteOrder.LITTLE_ENDIAN).asLongBuffer(),
+                    channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + (long) slots * Long.BYTES,
+                            (long) slots * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer());
+        }
+    }
+
+    /**
+     * Starts a tablebase file. The table is filled in place through a writable mapping of a
+     * file next to the target, which is moved into place when the writer is closed, so
+     * readers never see a partial file.
+     *
+     * @param file        The file to write
+     * @param size        The width and height of the board
+     * @param maxExponent The largest exponent a tile may reach
+     * @param count       The number of positions that will be added
+     * @return A writer for the positions
+     */
+    static Writer create(Path file, int size, int maxExponent, long count) throws IOException {
+        long slots = Math.max(16, Long.highestOneBit(Math.max(1, count)) << 2); // Between a quarter and half full
+        if (slots > MAX_SLOTS)
+            throw new IllegalArgumentException("Too many positions for one tablebase file: " + count);
+        return new Writer(file, PackedMoves.of(size, maxExponent), (int) slots, count);
+    }
+
+    public int size() {
+        return moves.size();
+    }
+
+    public int maxExponent() {
+        return moves.maxExponent();
+    }
+
+    /**
+     * Returns the number of positions in the tablebase.
+     *
+     * @return The number of solved positions
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Returns the exact value of a position: the expected score still to come under perfect
+     * play.
+     *
+     * @param board The packed position, after its new tile has appeared
+     * @return The value, or NaN if the position cannot be reached
+     */
+    public double value(long board) {
+        for (int slot = slot(board, mask); ; slot = (slot + 1) & mask) {
+            long key = keys.get(slot);
+            if (key == board)
+                return values.get(slot);
+            if (key == 0)
+                return Double.NaN;
+        }
+    }
+
+    /**
+     * Returns the exact value of the board after a move, averaged over the new tiles that can
+     * appear on it.
+     *
+     * @param board The packed board, before its new tile appears
+     * @return The value, or NaN if the board has no empty cell or cannot be reached
+     */
+    public double afterstateValue(long board) {
+        double expected = 0;
+        int empty = 0;
+        for (int cell = 0, cells = moves.size() * moves.size(); cell < cells; cell++) {
+            if (((board >>> (cell << 2)) & 0xF) == 0) {
+                empty++;
+                expected += (1 - FOUR_PROBABILITY) * value(board | 1L << (cell << 2))
+                        + FOUR_PROBABILITY * value(board | 2L << (cell << 2));
+            }
+        }
+        return empty == 0 ? Double.NaN : expected / empty;
+    }
+
+    @Override
+    public float evaluate(long board) {
+        return (float) afterstateValue(board);
+    }
+
+    /**
+     * Returns the move with the highest exact value.
+     *
+     * @param board The packed position
+     * @return The move code, or -1 if no move is legal
+     */
+    public int bestMove(long board) {
+        int best = -1;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int direction = 0; direction < 4; direction++) {
+            long moved = moves.move(board, direction);
+            if (moved == board)
+                continue;
+            double value = moves.score(board, direction) + afterstateValue(moved);
+            if (value > bestValue) {
+                bestValue = value;
+                best = direction;
+            }
+        }
+        return best;
+    }
+
+    private static int slot(long board, int mask) {
+        // The finalizer of MurmurHash3, which spreads the low nibbles over every bit
+        long h = board;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    /**
+     * Adds positions to a new tablebase file. A writer is used by one thread.
+     */
+    static final class Writer implements Closeable {
+        private final Path file, temp;
+        private final FileChannel channel;
+        private final LongBuffer keys;
+        private final DoubleBuffer values;
+        private final int mask;
+        private final long count;
+        private long added;
+
+        private Writer(Path file, PackedMoves moves, int slots, long count) throws IOException {
+            this.file = file;
+            this.temp = file.resolveSibling(file.getFileName() + ".tmp");
+            this.channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.mask = slots - 1;
+            this.count = count;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(moves.size()).putInt(moves.maxExponent()).putInt(slots)
+                    .putLong(count);
+            header.clear();
+            channel.write(header, 0);
+            // A fresh mapping past the end of the file reads as zeros, which are the empty slots
+            this.keys = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES, (long) slots * Long.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            this.values = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES + (long) slots * Long.BYTES,
+                    (long) slots * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+        }
+
+        /**
+         * Adds a position. Each position is added once.
+         *
+         * @param board The packed position
+         * @param value Its exact value
+         */
+        void put(long board, double value) {
+            if (board == 0)
+                throw new IllegalArgumentException("The empty board is not a position");
+            int slot = slot(board, mask);
+            while (keys.get(slot) != 0)
+                slot = (slot + 1) & mask;
+            keys.put(slot, board);
+            values.put(slot, value);
+            added++;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (added != count)
+                    throw new IllegalStateException("Expected " + count + " positions but " + added + " were added");
+                channel.force(true);
+            } finally {
+                channel.close();
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+}
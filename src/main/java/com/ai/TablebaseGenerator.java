@@ -0,0 +1,305 @@
+package com.ai;
+
+import com.engine.PackedMoves;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Solves a small board exactly and writes the result as a {@link Tablebase}.
+ * <p>
+ * A position is the board the player moves from, after the new tile has appeared. Moves
+ * never change the sum of the tiles and every new tile adds 2 or 4 to it, so the positions
+ * split into layers by tile sum and every move leads from one layer to a later one. That
+ * makes the state graph acyclic, and the exact value of every position follows from one
+ * forward pass and one backward pass instead of repeated value iteration:
+ * <ol>
+ *     <li>Forward, starting from every opening the game can deal, each layer is expanded into
+ *     the positions it leads to, which are collected, sorted and deduplicated to form the
+ *     later layers. Only positions that can actually be reached are kept.</li>
+ *     <li>Backward, from the largest tile sum down, the value of a position is the best over
+ *     its legal moves of the score gained plus the expected value of the positions the new
+ *     tile can make, looked up in the later layers that are already solved. A position with
+ *     no legal move is worth 0.</li>
+ * </ol>
+ * Both passes split each layer into chunks solved on a thread pool. Tiles spawn and merge by
+ * the rules of {@link com._2048.GameEngine}; a largest exponent below 15 gives the
+ * restricted-tile variants, where tiles that reach it no longer merge.
+ */
+public class TablebaseGenerator {
+    private static final int CHUNK = 1 << 14; // Positions per task
+
+    private final PackedMoves moves;
+    private final int cells, threads;
+    private final long[][] layers; // Sorted positions, indexed by tile sum / 2
+    private final double[][] values; // The value of each position in layers
+
+    /**
+     * @param size        The width and height of the board, 2 to 4
+     * @param maxExponent The largest exponent a tile may reach
+     * @param threads     The number of threads to solve on
+     */
+    public TablebaseGenerator(int size, int maxExponent, int threads) {
+        if (maxExponent < 2)
+            throw new IllegalArgumentException("The largest exponent must allow a 4 to spawn: " + maxExponent);
+        this.moves = PackedMoves.of(size, maxExponent);
+        this.cells = size * size;
+        this.threads = threads;
+        int maxSum = cells << maxExponent;
+        this.layers = new long[maxSum / 2 + 1][];
+        this.values = new double[layers.length][];
+    }
+
+    /**
+     * Enumerates and solves every reachable position.
+     *
+     * @return The number of positions solved
+     */
+    public long solve() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<List<long[]>> pending = new ArrayList<>(layers.length);
+            for (int i = 0; i < layers.length; i++)
+                pending.add(new ArrayList<>());
+            for (long opening : openings())
+                pending.get(tileSum(opening) / 2).add(new long[]{opening});
+
+            long count = 0;
+            for (int layer = 0; layer < layers.length; layer++) {
+                layers[layer] = distinct(pending.get(layer));
+                pending.set(layer, null);
+                count += layers[layer].length;
+                long[] positions = layers[layer];
+                List<Future<long[][]>> chunks = new ArrayList<>();
+                for (int from = 0; from < positions.length; from += CHUNK) {
+                    int start = from, end = Math.min(positions.length, from + CHUNK);
+                    chunks.add(pool.submit(() -> expand(positions, start, end)));
+                }
+                for (Future<long[][]> chunk : chunks) {
+                    long[][] next = get(chunk);
+                    if (next[0].length > 0)
+                        pending.get(layer + 1).add(next[0]);
+                    if (next[1].length > 0)
+                        pending.get(layer + 2).add(next[1]);
+                }
+            }
+
+            for (int layer = layers.length - 1; layer >= 0; layer--) {
+                long[] positions = layers[layer];
+                double[] solved = new double[positions.length];
+                int index = layer;
+                List<Future<?>> chunks = new ArrayList<>();
+                for (int from = 0; from < positions.length; from += CHUNK) {
+                    int start = from, end = Math.min(positions.length, from + CHUNK);
+                    chunks.add(pool.submit(() -> {
+                        for (int i = start; i < end; i++)
+                            solved[i] = solve(positions[i], index);
+                    }));
+                }
+                for (Future<?> chunk : chunks)
+                    get(chunk);
+                values[layer] = solved;
+            }
+            return count;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the expected score of a new game under perfect play, averaged over the
+     * openings the game can deal.
+     */
+    public double openingValue() {
+        // Each of the two opening tiles lands on a uniformly chosen empty cell
+        double total = 0;
+        for (int first = 0; first < cells; first++) {
+            for (int second = 0; second < cells; second++) {
+                if (second == first)
+                    continue;
+                for (int a = 1; a <= 2; a++)
+                    for (int b = 1; b <= 2; b++)
+                        total += spawnProbability(a) * spawnProbability(b)
+                                * value(((long) a << (first << 2)) | ((long) b << (second << 2)));
+            }
+        }
+        return total / (cells * (cells - 1));
+    }
+
+    /**
+     * Returns the solved value of a position.
+     *
+     * @param board The packed position
+     * @return Its expected score under perfect play, or NaN if it cannot be reached
+     */
+    public double value(long board) {
+        int layer = tileSum(board) / 2;
+        if (layer >= layers.length || values[layer] == null)
+            return Double.NaN;
+        int i = Arrays.binarySearch(layers[layer], board);
+        return i < 0 ? Double.NaN : values[layer][i];
+    }
+
+    /**
+     * Writes the solved positions to a tablebase file.
+     *
+     * @param file The file to write
+     */
+    public void write(Path file) throws IOException {
+        long count = 0;
+        for (long[] layer : layers)
+            count += layer == null ? 0 : layer.length;
+        try (Tablebase.Writer writer = Tablebase.create(file, moves.size(), moves.maxExponent(), count)) {
+            for (int layer = 0; layer < layers.length; layer++)
+                for (int i = 0; layers[layer] != null && i < layers[layer].length; i++)
+                    writer.put(layers[layer][i], values[layer][i]);
+        }
+    }
+
+    private long[] openings() {
+        List<Long> openings = new ArrayList<>();
+        for (int first = 0; first < cells; first++)
+            for (int second = first + 1; second < cells; second++)
+                for (int a = 1; a <= 2; a++)
+                    for (int b = 1; b <= 2; b++)
+                        openings.add(((long) a << (first << 2)) | ((long) b << (second << 2)));
+        return openings.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Returns the positions that follow the given ones: those with 2 more in tile sum, and
+     * those with 4 more, each sorted and without duplicates.
+     */
+    private long[][] expand(long[] positions, int start, int end) {
+        LongList twos = new LongList(), fours = new LongList();
+        for (int i = start; i < end; i++) {
+            long board = positions[i];
+            for (int direction = 0; direction < 4; direction++) {
+                long moved = moves.move(board, direction);
+                if (moved == board)
+                    continue;
+                for (int cell = 0; cell < cells; cell++) {
+                    if (((moved >>> (cell << 2)) & 0xF) == 0) {
+                        twos.add(moved | 1L << (cell << 2));
+                        fours.add(moved | 2L << (cell << 2));
+                    }
+                }
+            }
+        }
+        return new long[][]{twos.distinct(), fours.distinct()};
+    }
+
+    private double solve(long board, int layer) {
+        double best = 0;
+        for (int direction = 0; direction < 4; direction++) {
+            long moved = moves.move(board, direction);
+            if (moved == board)
+                continue;
+            double expected = 0;
+            int empty = 0;
+            for (int cell = 0; cell < cells; cell++) {
+                if (((moved >>> (cell << 2)) & 0xF) == 0) {
+                    empty++;
+                    expected += spawnProbability(1) * solved(layer + 1, moved | 1L << (cell << 2))
+                            + spawnProbability(2) * solved(layer + 2, moved | 2L << (cell << 2));
+                }
+            }
+            best = Math.max(best, moves.score(board, direction) + expected / empty);
+        }
+        return best;
+    }
+
+    private double solved(int layer, long board) {
+        return values[layer][Arrays.binarySearch(layers[layer], board)];
+    }
+
+    /**
+     * Returns the chance that a new tile has the given exponent: 4 in 5 for a 2, 1 in 5 for a 4.
+     */
+    static double spawnProbability(int exponent) {
+        return exponent == 1 ? 1 - Tablebase.FOUR_PROBABILITY : Tablebase.FOUR_PROBABILITY;
+    }
+
+    private static int tileSum(long board) {
+        int sum = 0;
+        for (; board != 0; board >>>= 4)
+            if ((board & 0xF) != 0)
+                sum += 1 << (board & 0xF);
+        return sum;
+    }
+
+    private static long[] distinct(List<long[]> chunks) {
+        LongList all = new LongList();
+        for (long[] chunk : chunks)
+            all.addAll(chunk);
+        return all.distinct();
+    }
+
+    private static <T> T get(Future<T> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Solving the tablebase failed", e.getCause());
+        }
+    }
+
+    /**
+     * A growable array of longs, so the positions are not boxed.
+     */
+    private static final class LongList {
+        private long[] values = new long[64];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length)
+                values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        void addAll(long[] more) {
+            if (size + more.length > values.length)
+                values = Arrays.copyOf(values, Math.max(size * 2, size + more.length));
+            System.arraycopy(more, 0, values, size, more.length);
+            size += more.length;
+        }
+
+        long[] distinct() {
+            Arrays.sort(values, 0, size);
+            int n = 0;
+            for (int i = 0; i < size; i++)
+                if (n == 0 || values[i] != values[n - 1])
+                    values[n++] = values[i];
+            return Arrays.copyOf(values, n);
+        }
+    }
+
+    /**
+     * Solves a board and writes its tablebase.
+     * <p>
+     * Usage: {@code TablebaseGenerator [size] [largest exponent] [file] [threads]}, for example
+     * {@code TablebaseGenerator 3 7 3x3-128.tb} for 3x3 boards where 128 is the largest tile.
+     */
+    public static void main(String[] args) throws Exception {
+        int size = args.length >= 1 ? Integer.parseInt(args[0]) : 2;
+        int maxExponent = args.length >= 2 ? Integer.parseInt(args[1]) : 15;
+        Path file = Path.of(args.length >= 3 ? args[2] : size + "x" + size + "-" + (1 << maxExponent) + ".tb");
+        int threads = args.length >= 4 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        long begin = System.nanoTime();
+        TablebaseGenerator generator = new TablebaseGenerator(size, maxExponent, threads);
+        long count = generator.solve();
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        generator.write(file);
+        System.out.printf("%dx%d, largest tile %d: %d positions solved in %.1f s%n", size, size, 1 << maxExponent,
+                count, seconds);
+        System.out.printf("expected score of a new game under perfect play: %.2f%n", generator.openingValue());
+        System.out.println("wrote " + file);
+    }
+}
@@ -0,0 +1,192 @@
+package com.ai;
+
+import com.engine.HeadlessGame;
+import com.engine.MoveSet;
+import com.engine.Moves;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Trains an {@link NTupleNetwork} by temporal-difference self-play.
+ * <p>
+ * Each worker thread plays its own {@link HeadlessGame}s, always taking the move with the
+ * best immediate reward plus afterstate value, and applies TD(0) updates to the afterstates
+ * it visits. All workers update the same weight tables without locks (Hogwild-style);
+ * the occasional lost update from two threads writing the same weight does not hurt
+ * learning. The network is saved to disk at a fixed interval and when training ends.
+ */
+public class TdTrainer {
+    private final NTupleNetwork network;
+    private final float learningRate;
+    private final int threads;
+    private final Path checkpoint;
+    private final long checkpointSeconds;
+    private final LongAdder games = new LongAdder(), updates = new LongAdder(), totalScore = new LongAdder();
+    private volatile boolean running;
+    private long lastReport, lastGames, lastUpdates; // Guarded by report()
+
+    /**
+     * Creates a trainer.
+     *
+     * @param network           The network to train; must have writable (heap) weights
+     * @param learningRate      The TD learning rate, spread over all weights of a board
+     * @param threads           The number of worker threads
+     * @param checkpoint        The file to save the network to, or null to never save
+     * @param checkpointSeconds The number of seconds between checkpoints
+     */
+    public TdTrainer(NTupleNetwork network, float learningRate, int threads, Path checkpoint, long checkpointSeconds) {
+        this.network = network;
+        this.learningRate = learningRate;
+        this.threads = threads;
+        this.checkpoint = checkpoint;
+        this.checkpointSeconds = checkpointSeconds;
+    }
+
+    /**
+     * Trains until the given number of games has been played in total, printing the
+     * throughput and average score every checkpoint interval.
+     *
+     * @param totalGames The number of games to play across all workers
+     * @param seed       The seed the workers' games are derived from
+     * @throws InterruptedException If the calling thread is interrupted while waiting
+     */
+    public void train(long totalGames, long seed) throws InterruptedException {
+        running = true;
+        synchronized (this) {
+            lastReport = System.nanoTime();
+        }
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        reporter.scheduleAtFixedRate(() -> {
+            report();
+            saveCheckpoint();
+        }, checkpointSeconds, checkpointSeconds, TimeUnit.SECONDS);
+
+        long perWorker = totalGames / threads, extra = totalGames % threads;
+        for (int w = 0; w < threads; w++) {
+            long count = perWorker + (w < extra ? 1 : 0);
+            long workerSeed = seed + w * 0x9E3779B97F4A7C15L;
+            workers.execute(() -> runWorker(count, workerSeed));
+        }
+        workers.shutdown();
+        workers.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        reporter.shutdownNow();
+        reporter.awaitTermination(checkpointSeconds, TimeUnit.SECONDS);
+        running = false;
+        report();
+        saveCheckpoint();
+    }
+
+    /**
+     * Asks the workers to stop after their current game.
+     */
+    public void stop() {
+        running = false;
+    }
+
+    public long getGames() { return games.sum(); }
+
+    public long getUpdates() { return updates.sum(); }
+
+    private void runWorker(long count, long seed) {
+        HeadlessGame game = new HeadlessGame(seed);
+        MoveSet moves = new MoveSet();
+        float alpha = learningRate / network.featureCount();
+        for (long g = 0; g < count && running; g++) {
+            game.newGame();
+            long previous = 0; // The afterstate of the previous move
+            boolean first = true;
+            int localUpdates = 0;
+            while (!game.isGameOver()) {
+                Moves.moveAll(game.getBoard(), moves);
+                int bestMove = -1, bestReward = 0;
+                long bestAfter = 0;
+                float bestValue = Float.NEGATIVE_INFINITY;
+                for (int direction = 0; direction < 4; direction++) {
+                    if (!moves.isLegal(direction))
+                        continue;
+                    long after = moves.board(direction);
+                    int reward = moves.score(direction);
+                    float value = reward + network.evaluate(after);
+                    if (value > bestValue) {
+                        bestValue = value;
+                        bestMove = direction;
+                        bestReward = reward;
+                        bestAfter = after;
+                    }
+                }
+                if (!first) {
+                    float error = bestReward + network.evaluate(bestAfter) - network.evaluate(previous);
+                    network.update(previous, alpha * error);
+                    localUpdates++;
+                }
+                game.move(bestMove);
+                previous = bestAfter;
+                first = false;
+            }
+            // The last afterstate led to a lost game, so its target value is 0
+            network.update(previous, -alpha * network.evaluate(previous));
+            updates.add(localUpdates + 1);
+            totalScore.add(game.getScore());
+            games.increment();
+        }
+    }
+
+    /**
+     * Prints the totals and the throughput since the previous report.
+     */
+    private synchronized void report() {
+        long now = System.nanoTime(), g = games.sum(), u = updates.sum();
+        double seconds = (now - lastReport) / 1e9;
+        long intervalGames = g - lastGames;
+        System.out.printf("games=%d (%.1f games/sec) updates=%d (%.0f updates/sec) avg score=%.0f%n",
+                g, intervalGames / seconds, u, (u - lastUpdates) / seconds,
+                intervalGames == 0 ? 0.0 : (double) totalScore.sumThenReset() / intervalGames);
+        lastReport = now;
+        lastGames = g;
+        lastUpdates = u;
+    }
+
+    private void saveCheckpoint() {
+        if (checkpoint == null)
+            return;
+        try {
+            network.save(checkpoint);
+        } catch (IOException e) {
+            System.err.println("Error saving checkpoint: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Trains a network from the command line.
+     * <p>
+     * Arguments: weights file, number of games (default 100000), number of threads
+     * (default: available processors), learning rate (default 0.1). Training resumes from
+     * the weights file if it exists.
+     *
+     * @param args Command-line arguments
+     * @throws Exception If the weights cannot be loaded or training is interrupted
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: TdTrainer <weights file> [games] [threads] [learning rate]");
+            return;
+        }
+        Path weights = Path.of(args[0]);
+        long totalGames = args.length >= 2 ? Long.parseLong(args[1]) : 100_000;
+        int threads = args.length >= 3 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        float learningRate = args.length >= 4 ? Float.parseFloat(args[3]) : 0.1f;
+
+        NTupleNetwork network = Files.exists(weights)
+                ? NTupleNetwork.load(weights).toHeap()
+                : NTupleNetwork.create(NTupleNetwork.STANDARD_TUPLES);
+        new TdTrainer(network, learningRate, threads, weights, 60).train(totalGames, System.nanoTime());
+    }
+}
@@ -0,0 +1,239 @@
+package com.ai;
+
+import com._2048.GameEngine;
+import com.engine.Board;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Plays every registered agent through the same seeded games and ranks them.
+ * <p>
+ * Game {@code i} is a {@link GameEngine} created from the {@code i}-th seed of the
+ * tournament, so every agent sees the same opening tiles and, as long as it makes the same
+ * moves, the same tiles afterwards. The games of each agent are split into one batch per
+ * thread. A batch creates its own agent from the registered supplier and its own games,
+ * so an agent and its games are confined to the thread that plays them and nothing is
+ * shared between threads but the read-only inputs.
+ * <p>
+ * For each agent the results give the mean score and number of moves with 95% confidence
+ * intervals, the median score, and how often each of the 2048 to 32768 tiles was reached.
+ */
+public class Tournament {
+    private static final int[] MILESTONES = {11, 12, 13, 14, 15}; // The tile exponents to report: 2048 to 32768
+    private static final double Z_95 = 1.959964; // The normal quantile for a two-sided 95% interval
+
+    private final int games, threads;
+    private final long[] seeds;
+    private final Map<String, Supplier<Agent>> agents = new LinkedHashMap<>();
+
+    /**
+     * @param games   The number of games each agent plays
+     * @param seed    The seed the game seeds are derived from
+     * @param threads The number of threads to play on
+     */
+    public Tournament(int games, long seed, int threads) {
+        this.games = games;
+        this.threads = threads;
+        this.seeds = new long[games];
+        SplittableRandom rand = new SplittableRandom(seed);
+        for (int i = 0; i < games; i++)
+            seeds[i] = rand.nextLong();
+    }
+
+    /**
+     * Registers an agent.
+     *
+     * @param name    The name shown on the leaderboard
+     * @param factory Creates an instance of the agent; called once per thread
+     */
+    public void register(String name, Supplier<Agent> factory) {
+        agents.put(name, factory);
+    }
+
+    /**
+     * Plays all games of all agents.
+     *
+     * @return The results, best mean score first
+     */
+    public List<Result> run() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            Map<String, List<Future<Void>>> batches = new LinkedHashMap<>();
+            Map<String, GameRecord[]> records = new LinkedHashMap<>();
+            int batchSize = (games + threads - 1) / threads;
+            for (Map.Entry<String, Supplier<Agent>> entry : agents.entrySet()) {
+                GameRecord[] played = new GameRecord[games];
+                records.put(entry.getKey(), played);
+                List<Future<Void>> futures = new ArrayList<>();
+                for (int from = 0; from < games; from += batchSize) {
+                    int start = from, end = Math.min(games, from + batchSize);
+                    futures.add(pool.submit(() -> {
+                        playBatch(entry.getValue().get(), start, end, played);
+                        return null;
+                    }));
+                }
+                batches.put(entry.getKey(), futures);
+            }
+            List<Result> results = new ArrayList<>();
+            for (Map.Entry<String, List<Future<Void>>> entry : batches.entrySet()) {
+                for (Future<Void> future : entry.getValue()) {
+                    try {
+                        future.get();
+                    } catch (ExecutionException e) {
+                        throw new IllegalStateException("Agent " + entry.getKey() + " failed", e.getCause());
+                    }
+                }
+                results.add(Result.of(entry.getKey(), records.get(entry.getKey())));
+            }
+            results.sort(Comparator.comparingDouble(Result::meanScore).reversed());
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void playBatch(Agent agent, int start, int end, GameRecord[] played) {
+        for (int i = start; i < end; i++) {
+            GameEngine game = new GameEngine(Board.SIZE, seeds[i]);
+            game.newGame();
+            // Keep playing past 2048 instead of stopping at the win screen
+            game.continueGame();
+            agent.reset(seeds[i] ^ 0x9E3779B97F4A7C15L);
+            long begin = System.nanoTime();
+            while (!game.getGameOver()) {
+                int direction = agent.chooseMove(game.getPackedBoard());
+                if (direction < 0 || !game.move(direction))
+                    break;
+            }
+            played[i] = new GameRecord(game.getNewScore(), game.getMaxExponent(),
+                    game.getMoveCount(), System.nanoTime() - begin);
+        }
+    }
+
+    /**
+     * Writes the results as a plain text table.
+     *
+     * @param results The results from {@link #run()}
+     * @param file    The leaderboard file to write
+     */
+    public void writeLeaderboard(List<Result> results, Path file) throws IOException {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("# %d games per agent, seeds derived from the tournament seed%n", games));
+        text.append(String.format("%-4s %-20s %22s %10s %18s %10s", "rank", "agent", "mean score (95% CI)", "median",
+                "moves (95% CI)", "ms/game"));
+        for (int exponent : MILESTONES)
+            text.append(String.format(" %7d", 1 << exponent));
+        text.append(System.lineSeparator());
+        for (int rank = 0; rank < results.size(); rank++) {
+            Result r = results.get(rank);
+            text.append(String.format("%-4d %-20s %12.0f +- %6.0f %10d %9.0f +- %5.0f %10.2f", rank + 1, r.agent(),
+                    r.meanScore(), r.scoreInterval(), r.medianScore(), r.meanMoves(), r.movesInterval(), r.meanMillis()));
+            for (double rate : r.milestoneRates())
+                text.append(String.format(" %6.1f%%", 100 * rate));
+            text.append(System.lineSeparator());
+        }
+        Files.writeString(file, text);
+    }
+
+    /**
+     * The outcome of one game.
+     */
+    record GameRecord(int score, int maxExponent, int moves, long nanos) {}
+
+    /**
+     * The statistics of one agent over all games.
+     *
+     * @param agent          The agent's name
+     * @param meanScore      The mean final score
+     * @param scoreInterval  The half-width of the 95% confidence interval of the mean score
+     * @param medianScore    The median final score
+     * @param meanMoves      The mean number of moves per game
+     * @param movesInterval  The half-width of the 95% confidence interval of the mean moves
+     * @param meanMillis     The mean time spent playing a game
+     * @param milestoneRates The share of games reaching 2048, 4096, 8192, 16384 and 32768
+     */
+    public record Result(String agent, double meanScore, double scoreInterval, int medianScore, double meanMoves,
+                         double movesInterval, double meanMillis, double[] milestoneRates) {
+
+        static Result of(String agent, GameRecord[] records) {
+            int n = records.length;
+            double[] scores = new double[n], moves = new double[n];
+            int[] sorted = new int[n];
+            double millis = 0;
+            double[] milestones = new double[MILESTONES.length];
+            for (int i = 0; i < n; i++) {
+                scores[i] = sorted[i] = records[i].score();
+                moves[i] = records[i].moves();
+                millis += records[i].nanos() / 1e6;
+                for (int m = 0; m < MILESTONES.length; m++)
+                    if (records[i].maxExponent() >= MILESTONES[m])
+                        milestones[m]++;
+            }
+            Arrays.sort(sorted);
+            for (int m = 0; m < milestones.length; m++)
+                milestones[m] /= n;
+            return new Result(agent, mean(scores), interval(scores), n == 0 ? 0 : sorted[n / 2], mean(moves),
+                    interval(moves), n == 0 ? 0 : millis / n, milestones);
+        }
+
+        private static double mean(double[] values) {
+            double sum = 0;
+            for (double v : values)
+                sum += v;
+            return values.length == 0 ? 0 : sum / values.length;
+        }
+
+        /**
+         * Returns the half-width of the normal-approximation 95% confidence interval of the mean.
+         */
+        private static double interval(double[] values) {
+            int n = values.length;
+            if (n < 2)
+                return 0;
+            double mean = mean(values), squares = 0;
+            for (double v : values)
+                squares += (v - mean) * (v - mean);
+            return Z_95 * Math.sqrt(squares / (n - 1) / n);
+        }
+    }
+
+    /**
+     * Runs a tournament between the built-in agents and writes the leaderboard.
+     * <p>
+     * Usage: {@code Tournament [games] [threads] [seed] [leaderboard file] [n-tuple weights]}.
+     * The n-tuple agent only takes part when a weights file (see {@link TdTrainer}) is given.
+     */
+    public static void main(String[] args) throws Exception {
+        int games = args.length >= 1 ? Integer.parseInt(args[0]) : 100;
+        int threads = args.length >= 2 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length >= 3 ? Long.parseLong(args[2]) : 2048;
+        Path leaderboard = Path.of(args.length >= 4 ? args[3] : "leaderboard.txt");
+
+        Tournament tournament = new Tournament(games, seed, threads);
+        tournament.register("random", RandomAgent::new);
+        tournament.register("greedy", GreedyAgent::new);
+        tournament.register("expectimax-2", () -> new Expectimax(new HeuristicEvaluator(), 2, 16L << 20));
+        if (args.length >= 5) {
+            // Memory-mapped read-only weights can be shared by every thread
+            NTupleNetwork network = NTupleNetwork.load(Path.of(args[4]));
+            tournament.register("n-tuple", () -> new GreedyAgent(network));
+        }
+        List<Result> results = tournament.run();
+        tournament.writeLeaderboard(results, leaderboard);
+        System.out.print(Files.readString(leaderboard));
+    }
+}
@@ -0,0 +1,257 @@
+/**
+ * BatchEngine.java
+ * Many independent 4x4 games stepped together.
+ */
+package com.engine;
+
+import java.util.SplittableRandom;
+
+/**
+ * The BatchEngine class plays a batch of independent games on packed 4x4 boards (see
+ * {@link Board}), stored as a structure of arrays: the boards in one {@code long[]}, and the
+ * scores, rewards and game over flags in arrays of their own. {@link #step} applies one
+ * action per game to the whole batch, which is what training and large evaluations need.
+ * <p>
+ * A step moves every board, then adds a new tile to every board that changed, in index
+ * order, from the engine's {@link SplittableRandom}. When the {@code jdk.incubator.vector}
+ * module is present (run with {@code --add-modules jdk.incubator.vector}) the moves and
+ * the empty cell counts for the spawns are computed several boards at a time by
+ * {@link VectorKernel}; otherwise, or with {@code -D_2048.scalarBatch=true}, one board at a
+ * time by {@link Moves}. Both give exactly the same games from the same seed. Tiles move,
+ * merge and spawn by the rules of {@link com._2048.GameEngine}. Games are not stopped at
+ * 2048, and a game that is over ignores its actions until it is reset.
+ * <p>
+ * An engine is not thread-safe; give each thread its own, seeded from {@link #split()}.
+ */
+public final class BatchEngine {
+    private static final boolean VECTORIZED = !Boolean.getBoolean("_2048.scalarBatch")
+            && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent() && VectorKernel.usable();
+
+    private final int size;
+    private final long[] boards;
+    private final int[] scores, rewards, moveCounts;
+    private final boolean[] over;
+    private final boolean[] changed; // Scratch for the boards a step moved
+    private final int[] empty; // Scratch for the empty cell counts of a step
+    private final SplittableRandom rand;
+
+    /**
+     * Creates a batch of games and starts them.
+     *
+     * @param size The number of games
+     * @param seed The seed every tile is drawn from
+     */
+    public BatchEngine(int size, long seed) {
+        this(size, new SplittableRandom(seed));
+    }
+
+    private BatchEngine(int size, SplittableRandom rand) {
+        this.size = size;
+        this.boards = new long[size];
+        this.scores = new int[size];
+        this.rewards = new int[size];
+        this.moveCounts = new int[size];
+        this.over = new boolean[size];
+        this.changed = new boolean[size];
+        this.empty = new int[size];
+        this.rand = rand;
+        reset();
+    }
+
+    /**
+     * Returns whether moves are made with the Vector API.
+     *
+     * @return False if the scalar fallback is in use
+     */
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    /**
+     * Creates a new batch of the same size whose tiles come from a random generator split
+     * off from this one, for playing on another thread.
+     *
+     * @return A new, started batch
+     */
+    public BatchEngine split() {
+        return new BatchEngine(size, rand.split());
+    }
+
+    /**
+     * Starts a new game on every board.
+     */
+    public void reset() {
+        for (int i = 0; i < size; i++)
+            reset(i);
+    }
+
+    /**
+     * Starts a new game on one board: two random tiles on an empty board.
+     *
+     * @param i The index of the game
+     */
+    public void reset(int i) {
+        boards[i] = Moves.spawn(Moves.spawn(0, rand), rand);
+        scores[i] = 0;
+        rewards[i] = 0;
+        moveCounts[i] = 0;
+        over[i] = false;
+    }
+
+    /**
+     * Starts a new game on every board whose game is over.
+     *
+     * @return The number of games restarted
+     */
+    public int resetFinished() {
+        int restarted = 0;
+        for (int i = 0; i < size; i++) {
+            if (over[i]) {
+                reset(i);
+                restarted++;
+            }
+        }
+        return restarted;
+    }
+
+    /**
+     * Makes one move in every game: slides and merges the tiles, and adds a new tile to
+     * every board that changed. {@link #rewards()} then holds the score of each move, 0
+     * where the board did not change.
+     *
+     * @param actions One move code per game (see {@link Board}); anything else skips the game
+     * @return The number of boards that changed
+     */
+    public int step(int[] actions) {
+        if (actions.length < size)
+            throw new IllegalArgumentException("Expected " + size + " actions, got " + actions.length);
+        int i = VECTORIZED ? VectorKernel.move(boards, actions, over, rewards, changed, 0, size) : 0;
+        for (; i < size; i++) {
+            int action = actions[i];
+            rewards[i] = 0;
+            changed[i] = false;
+            if (over[i] || action < Board.UP || action > Board.LEFT)
+                continue;
+            long moved = Moves.move(boards[i], action);
+            if (moved != boards[i]) {
+                rewards[i] = Moves.score(boards[i], action);
+                boards[i] = moved;
+                changed[i] = true;
+            }
+        }
+
+        i = VECTORIZED ? VectorKernel.emptyCells(boards, empty, 0, size) : 0;
+        for (; i < size; i++)
+            empty[i] = Moves.emptyCells(boards[i]);
+        // The spawns draw from the one generator in index order, so both paths play the same games
+        int moved = 0;
+        for (i = 0; i < size; i++) {
+            if (!changed[i])
+                continue;
+            moved++;
+            scores[i] += rewards[i];
+            moveCounts[i]++;
+            boards[i] = spawn(boards[i], empty[i]);
+            // Only a board the new tile filled can be stuck
+            if (empty[i] == 1 && !Moves.canMove(boards[i]))
+                over[i] = true;
+        }
+        return moved;
+    }
+
+    /**
+     * Adds a tile to one of the given number of empty cells, as {@link Moves#spawn} does.
+     */
+    private long spawn(long board, int emptyCells) {
+        int exponent = Moves.spawnExponent(rand), target = rand.nextInt(emptyCells);
+        for (int cell = 0; cell < Board.CELLS; cell++) {
+            if (Board.exponent(board, cell) == 0 && target-- == 0)
+                return board | (long) exponent << (cell << 2);
+        }
+        throw new IllegalStateException("No empty cell on " + Long.toHexString(board));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the packed boards, indexed by game. The array is the engine's own.
+     *
+     * @return The boards
+     */
+    public long[] boards() {
+        return boards;
+    }
+
+    /**
+     * Returns the score of each game. The array is the engine's own.
+     *
+     * @return The scores
+     */
+    public int[] scores() {
+        return scores;
+    }
+
+    /**
+     * Returns the score each game gained in the last step. The array is the engine's own.
+     *
+     * @return The rewards
+     */
+    public int[] rewards() {
+        return rewards;
+    }
+
+    /**
+     * Returns the number of moves each game has made. The array is the engine's own.
+     *
+     * @return The move counts
+     */
+    public int[] moveCounts() {
+        return moveCounts;
+    }
+
+    /**
+     * Returns whether each game is over. The array is the engine's own.
+     *
+     * @return The game over flags
+     */
+    public boolean[] over() {
+        return over;
+    }
+
+    /**
+     * Steps a batch of games with random moves and reports the boards stepped per second.
+     * <p>
+     * Usage: {@code BatchEngine [games] [steps] [seed]}; add
+     * {@code --add-modules jdk.incubator.vector} to the java command for the vectorized
+     * moves.
+     */
+    public static void main(String[] args) {
+        int games = args.length >= 1 ? Integer.parseInt(args[0]) : 4096;
+        int steps = args.length >= 2 ? Integer.parseInt(args[1]) : 2000;
+        long seed = args.length >= 3 ? Long.parseLong(args[2]) : 2048;
+
+        BatchEngine engine = new BatchEngine(games, seed);
+        SplittableRandom moves = new SplittableRandom(seed + 1);
+        int[] actions = new int[games];
+        // The first fifth warms up the compiler and is not timed
+        long begin = 0, stepped = 0, finished = 0;
+        for (int step = 0; step < steps; step++) {
+            if (step == steps / 5)
+                begin = System.nanoTime();
+            for (int i = 0; i < games; i++)
+                actions[i] = moves.nextInt(4);
+            engine.step(actions);
+            int restarted = engine.resetFinished();
+            if (step >= steps / 5) {
+                stepped += games;
+                finished += restarted;
+            }
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        System.out.printf("%s: %d games, %d steps: %.1f million boards stepped per second, %d games finished%n",
+                isVectorized() ? "vector (" + VectorKernel.lanes() + " lanes)" : "scalar", games, steps,
+                stepped / seconds / 1e6, finished);
+    }
+}
@@ -0,0 +1,168 @@
+/**
+ * Board.java
+ * Helpers for the packed form of a 4x4 2048 board, where the whole board
+ * is stored in a single long.
+ */
+package com.engine;
+
+/**
+ * The Board class converts between the tile values used by {@link com._2048.Game}
+ * and the packed 64-bit board used by the headless and analysis code.
+ * <p>
+ * Each cell occupies one 4-bit nibble holding the tile's exponent (0 for an empty
+ * cell, 1 for a 2, 2 for a 4, ...). Cell (row, col) lives at nibble {@code row * 4 + col},
+ * so row 0 is the lowest 16 bits of the long. Exponents above 15 cannot be stored
+ * and are clamped to 15 (a 32768 tile).
+ */
+public final class Board {
+    public final static int SIZE = 4; // The width and height of a packed board
+    public final static int CELLS = SIZE * SIZE; // The number of cells in a packed board
+    public final static int MAX_EXPONENT = 15; // The largest exponent a nibble can hold
+
+    // Move codes shared by every packed-board API
+    public final static int UP = 0, RIGHT = 1, DOWN = 2, LEFT = 3;
+
+    private Board() {}
+
+    /**
+     * Returns the exponent stored in the given cell.
+     *
+     * @param board The packed board
+     * @param cell  The cell index (row * 4 + col)
+     * @return The exponent of the tile in that cell, or 0 if it is empty
+     */
+    public static int exponent(long board, int cell) {
+        return (int) (board >>> (cell << 2)) & 0xF;
+    }
+
+    /**
+     * Returns a copy of the board with the given cell set to the given exponent.
+     *
+     * @param board    The packed board
+     * @param cell     The cell index (row * 4 + col)
+     * @param exponent The exponent to store (0 clears the cell)
+     * @return The updated packed board
+     */
+    public static long withExponent(long board, int cell, int exponent) {
+        int shift = cell << 2;
+        return (board & ~(0xFL << shift)) | ((long) exponent << shift);
+    }
+
+    /**
+     * Converts a tile value (0, 2, 4, 8, ...) to its exponent, clamping to {@link #MAX_EXPONENT}.
+     *
+     * @param value The tile value
+     * @return The exponent of the tile value
+     */
+    public static int toExponent(int value) {
+        if (value <= 0)
+            return 0;
+        return Math.min(Integer.numberOfTrailingZeros(value), MAX_EXPONENT);
+    }
+
+    /**
+     * Converts an exponent back to a tile value.
+     *
+     * @param exponent The exponent
+     * @return The tile value, or 0 for an empty cell
+     */
+    public static int toValue(int exponent) {
+        return exponent == 0 ? 0 : 1 << exponent;
+    }
+
+    /**
+     * Packs a board of tile values, such as the one returned by
+     * {@link com._2048.Game#getIntBoard()}, into a long.
+     *
+     * @param values A 4x4 array of tile values indexed [row][col]
+     * @return The packed board
+     */
+    public static long pack(int[][] values) {
+        long board = 0;
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                board |= (long) toExponent(values[i][j]) << ((i * SIZE + j) << 2);
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Unpacks a packed board into a fresh 4x4 array of tile values.
+     *
+     * @param board The packed board
+     * @return A 4x4 array of tile values indexed [row][col]
+     */
+    public static int[][] unpack(long board) {
+        int[][] values = new int[SIZE][SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                values[i][j] = toValue(exponent(board, i * SIZE + j));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Returns the largest exponent on a packed board.
+     *
+     * @param board The packed board
+     * @return The exponent of the largest tile, 0 for an empty board
+     */
+    public static int maxExponent(long board) {
+        int max = 0;
+        for (; board != 0; board >>>= 4)
+            max = Math.max(max, (int) (board & 0xF));
+        return max;
+    }
+
+    /**
+     * Converts one of the game's direction names into a move code.
+     *
+     * @param direction The direction name ("up", "right", "down" or "left")
+     * @return The matching move code
+     */
+    public static int moveCode(String direction) {
+        return switch (direction) {
+            case "up" -> UP;
+            case "right" -> RIGHT;
+            case "down" -> DOWN;
+            case "left" -> LEFT;
+            default -> throw new IllegalArgumentException("Unknown direction: " + direction);
+        };
+    }
+
+    /**
+     * Converts a move code into the game's direction name.
+     *
+     * @param direction The move code
+     * @return The matching direction name ("up", "right", "down" or "left")
+     */
+    public static String moveName(int direction) {
+        return switch (direction) {
+            case UP -> "up";
+            case RIGHT -> "right";
+            case DOWN -> "down";
+            case LEFT -> "left";
+            default -> throw new IllegalArgumentException("Unknown move code: " + direction);
+        };
+    }
+
+    /**
+     * Formats a packed board the same way {@link com._2048.Game#toString()} formats the game.
+     *
+     * @param board The packed board
+     * @return A printable representation of the board
+     */
+    public static String toString(long board) {
+        StringBuilder string = new StringBuilder();
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                int value = toValue(exponent(board, i * SIZE + j));
+                string.append(value).append(value >= 1024 ? "\t" : "\t\t");
+            }
+            string.append("\n");
+        }
+        return string.toString();
+    }
+}
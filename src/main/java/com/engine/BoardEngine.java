@@ -0,0 +1,92 @@
+/**
+ * BoardEngine.java
+ * A mutable board of any supported size with the game's move rules.
+ */
+package com.engine;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * The BoardEngine interface is the headless core of a game on a square board of a size
+ * chosen at runtime. {@link #create} picks the representation once, so the per-move code
+ * never checks the size again: boards of up to 4x4 are packed into a single long and moved
+ * with row lookup tables, larger boards are stored one byte per cell.
+ * <p>
+ * Cells hold exponents (0 for empty, 1 for a 2, 2 for a 4, ...). Move codes are the ones
+ * defined in {@link Board}. An engine is not thread-safe.
+ */
+public interface BoardEngine {
+    int MIN_SIZE = 2, MAX_SIZE = 8; // The supported board sizes
+
+    /**
+     * Creates an empty engine for the given board size.
+     *
+     * @param size The width and height of the board
+     * @return A packed engine for sizes up to 4, a byte-array engine for larger sizes
+     */
+    static BoardEngine create(int size) {
+        if (size < MIN_SIZE || size > MAX_SIZE)
+            throw new IllegalArgumentException("Board size must be between " + MIN_SIZE + " and " + MAX_SIZE);
+        return size <= PackedBoardEngine.MAX_SIZE ? new PackedBoardEngine(size) : new ByteBoardEngine(size);
+    }
+
+    /**
+     * Returns the width and height of the board.
+     *
+     * @return The board size
+     */
+    int size();
+
+    /**
+     * Empties every cell.
+     */
+    void clear();
+
+    /**
+     * Returns the exponent in a cell.
+     *
+     * @param row The row of the cell
+     * @param col The column of the cell
+     * @return The exponent, or 0 if the cell is empty
+     */
+    int getExponent(int row, int col);
+
+    /**
+     * Sets the exponent in a cell, clamping it to the largest exponent the engine can store.
+     *
+     * @param row      The row of the cell
+     * @param col      The column of the cell
+     * @param exponent The exponent, or 0 to empty the cell
+     */
+    void setExponent(int row, int col, int exponent);
+
+    /**
+     * Slides and merges the tiles. No new tile is added.
+     *
+     * @param direction The move code
+     * @return The score gained by the move, or -1 if the move did not change the board
+     */
+    int move(int direction);
+
+    /**
+     * Returns whether any move would change the board.
+     *
+     * @return True if at least one move is legal
+     */
+    boolean canMove();
+
+    /**
+     * Returns the number of empty cells.
+     *
+     * @return The number of cells holding a 0 exponent
+     */
+    int emptyCells();
+
+    /**
+     * Adds a new tile to a random empty cell with the same odds as {@link Moves#spawn}.
+     *
+     * @param rand The random number generator to use
+     * @return False if the board was full
+     */
+    boolean spawn(RandomGenerator rand);
+}
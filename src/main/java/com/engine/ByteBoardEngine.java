@@ -0,0 +1,113 @@
+/**
+ * ByteBoardEngine.java
+ * A board larger than 4x4, stored one byte per cell.
+ */
+package com.engine;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * The ByteBoardEngine class stores boards from 5x5 up to {@link BoardEngine#MAX_SIZE} in a
+ * byte array, one exponent per cell in row-major order. For every direction it precomputes
+ * the cell indices of each line, ordered from the wall the tiles move towards, so a move
+ * is the same loop whatever the direction or size.
+ */
+public final class ByteBoardEngine implements BoardEngine {
+    private final static int MAX_EXPONENT = 30; // Larger merges would overflow the int score
+
+    private final int size;
+    private final byte[] cells;
+    private final int[][][] lines; // [direction][line][position from the wall] -> cell index
+    private final int[] line; // Scratch space for the line being moved
+
+    ByteBoardEngine(int size) {
+        this.size = size;
+        this.cells = new byte[size * size];
+        this.line = new int[size];
+        this.lines = new int[4][size][size];
+        for (int l = 0; l < size; l++) {
+            for (int k = 0; k < size; k++) {
+                lines[Board.UP][l][k] = k * size + l;
+                lines[Board.DOWN][l][k] = (size - 1 - k) * size + l;
+                lines[Board.LEFT][l][k] = l * size + k;
+                lines[Board.RIGHT][l][k] = l * size + (size - 1 - k);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(cells, (byte) 0);
+    }
+
+    @Override
+    public int getExponent(int row, int col) {
+        return cells[row * size + col];
+    }
+
+    @Override
+    public void setExponent(int row, int col, int exponent) {
+        cells[row * size + col] = (byte) Math.min(exponent, MAX_EXPONENT);
+    }
+
+    @Override
+    public int move(int direction) {
+        int score = 0;
+        boolean changed = false;
+        for (int[] indices : lines[direction]) {
+            for (int k = 0; k < size; k++)
+                line[k] = cells[indices[k]];
+            score += Moves.slide(line, size, MAX_EXPONENT);
+            for (int k = 0; k < size; k++) {
+                changed |= cells[indices[k]] != line[k];
+                cells[indices[k]] = (byte) line[k];
+            }
+        }
+        return changed ? score : -1;
+    }
+
+    @Override
+    public boolean canMove() {
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                int e = cells[r * size + c];
+                if (e == 0)
+                    return true;
+                if ((c + 1 < size && cells[r * size + c + 1] == e && e < MAX_EXPONENT)
+                        || (r + 1 < size && cells[(r + 1) * size + c] == e && e < MAX_EXPONENT))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int emptyCells() {
+        int empty = 0;
+        for (byte cell : cells)
+            if (cell == 0)
+                empty++;
+        return empty;
+    }
+
+    @Override
+    public boolean spawn(RandomGenerator rand) {
+        int empty = emptyCells();
+        if (empty == 0)
+            return false;
+        int target = rand.nextInt(empty);
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] == 0 && target-- == 0) {
+                cells[i] = (byte) Moves.spawnExponent(rand);
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * HeadlessGame.java
+ * A game of 2048 on a packed board, for training and analysis code that runs without a UI.
+ */
+package com.engine;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * The HeadlessGame class plays the same game as {@link com._2048.Game}, but keeps its board
+ * in a single long, fires no events and allocates nothing per move. A game is confined to
+ * the thread that plays it.
+ */
+public class HeadlessGame {
+    private final RandomGenerator rand; // Random number generator for tile placement
+    private long board; // The packed board
+    private int score, moveCount;
+    private boolean gameOver;
+
+    /**
+     * Creates a game whose tile placement is determined by the given seed.
+     *
+     * @param seed The seed for tile placement
+     */
+    public HeadlessGame(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    /**
+     * Creates a game that places tiles using the given random number generator.
+     *
+     * @param rand The random number generator for tile placement
+     */
+    public HeadlessGame(RandomGenerator rand) {
+        this.rand = rand;
+        newGame();
+    }
+
+    /**
+     * Starts a new game with an empty board and two random tiles.
+     */
+    public void newGame() {
+        this.board = Moves.spawn(Moves.spawn(0L, rand), rand);
+        this.score = 0;
+        this.moveCount = 0;
+        this.gameOver = false;
+    }
+
+    /**
+     * Moves the tiles and, if the board changed, adds a new tile.
+     *
+     * @param direction The move code (see {@link Board})
+     * @return The score gained by the move, or -1 if the move did not change the board
+     */
+    public int move(int direction) {
+        long moved = Moves.move(board, direction);
+        if (moved == board)
+            return -1;
+        int gained = Moves.score(board, direction);
+        this.score += gained;
+        this.moveCount++;
+        this.board = Moves.spawn(moved, rand);
+        this.gameOver = !Moves.canMove(this.board);
+        return gained;
+    }
+
+    /**
+     * Replaces the board, for example to continue from a recorded position.
+     *
+     * @param board The packed board
+     */
+    public void setBoard(long board) {
+        this.board = board;
+        this.gameOver = !Moves.canMove(board);
+    }
+
+    public long getBoard() { return this.board; }
+
+    public int getScore() { return this.score; }
+
+    public int getMoveCount() { return this.moveCount; }
+
+    public boolean isGameOver() { return this.gameOver; }
+
+    public RandomGenerator getRandom() { return this.rand; }
+}
@@ -0,0 +1,65 @@
+/**
+ * MoveSet.java
+ * The results of all four moves from one packed board.
+ */
+package com.engine;
+
+/**
+ * The MoveSet class holds the successor board, score gain and legality of every move
+ * from a single board, as filled in by {@link Moves#moveAll}. A MoveSet is meant to be
+ * created once and reused for every board a search or training loop looks at.
+ */
+public final class MoveSet {
+    private final long[] boards = new long[4];
+    private final int[] scores = new int[4];
+    private int legalMask;
+
+    /**
+     * Returns the board after a move, before a new tile is added.
+     *
+     * @param direction The move code (see {@link Board})
+     * @return The packed board after the move; the original board if the move is illegal
+     */
+    public long board(int direction) {
+        return boards[direction];
+    }
+
+    /**
+     * Returns the score a move gains.
+     *
+     * @param direction The move code (see {@link Board})
+     * @return The sum of the merged tile values
+     */
+    public int score(int direction) {
+        return scores[direction];
+    }
+
+    /**
+     * Returns whether a move changes the board.
+     *
+     * @param direction The move code (see {@link Board})
+     * @return True if the move is legal
+     */
+    public boolean isLegal(int direction) {
+        return (legalMask & (1 << direction)) != 0;
+    }
+
+    /**
+     * Returns the legal moves as a bit mask, with bit {@code d} set when move code {@code d} is legal.
+     *
+     * @return The legal move mask; 0 when no move is possible
+     */
+    public int legalMask() {
+        return legalMask;
+    }
+
+    void set(long up, long right, long down, long left, int verticalScore, int horizontalScore, int legalMask) {
+        boards[Board.UP] = up;
+        boards[Board.RIGHT] = right;
+        boards[Board.DOWN] = down;
+        boards[Board.LEFT] = left;
+        scores[Board.UP] = scores[Board.DOWN] = verticalScore;
+        scores[Board.LEFT] = scores[Board.RIGHT] = horizontalScore;
+        this.legalMask = legalMask;
+    }
+}
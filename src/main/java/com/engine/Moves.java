@@ -0,0 +1,215 @@
+/**
+ * Moves.java
+ * Table-driven moves on packed 4x4 boards.
+ */
+package com.engine;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * The Moves class applies the rules of {@link com._2048.GameEngine} to packed boards
+ * (see {@link Board}) without creating any objects.
+ * <p>
+ * Every possible 16-bit row is slid and merged once, when the class is loaded, and the
+ * results are stored in lookup tables. A left or right move is then four table lookups,
+ * and an up or down move is the same after transposing the board. Tiles merge the same
+ * way {@link com._2048.GameEngine#condense} merges them: empty cells are removed, equal
+ * neighbours are merged starting from the side the tiles move towards, and a merged
+ * tile does not merge again in the same move. Two 32768 tiles (exponent 15) do not
+ * merge because the result would not fit in a nibble.
+ */
+public final class Moves {
+    private final static int ROWS = 1 << 16;
+    private final static char[] ROW_LEFT = new char[ROWS], ROW_RIGHT = new char[ROWS];
+    private final static int[] ROW_SCORE = new int[ROWS]; // Score gained moving a row (either way)
+
+    static {
+        int[] cells = new int[Board.SIZE];
+        for (int row = 0; row < ROWS; row++) {
+            for (int c = 0; c < Board.SIZE; c++)
+                cells[c] = (row >>> (c << 2)) & 0xF;
+            int score = slide(cells, cells.length, Board.MAX_EXPONENT);
+            int left = 0;
+            for (int c = 0; c < Board.SIZE; c++)
+                left |= cells[c] << (c << 2);
+            ROW_LEFT[row] = (char) left;
+            ROW_SCORE[row] = score;
+        }
+        // Moving right is moving the reversed row left
+        for (int row = 0; row < ROWS; row++)
+            ROW_RIGHT[row] = (char) reverse(ROW_LEFT[reverse(row)]);
+    }
+
+    private Moves() {}
+
+    /**
+     * Applies a move to a packed board. The board is returned unchanged if the move is illegal.
+     *
+     * @param board     The packed board
+     * @param direction The move code (see {@link Board})
+     * @return The packed board after the tiles have moved, before a new tile is added
+     */
+    public static long move(long board, int direction) {
+        return switch (direction) {
+            case Board.UP -> transpose(moveRows(transpose(board), ROW_LEFT));
+            case Board.DOWN -> transpose(moveRows(transpose(board), ROW_RIGHT));
+            case Board.LEFT -> moveRows(board, ROW_LEFT);
+            case Board.RIGHT -> moveRows(board, ROW_RIGHT);
+            default -> throw new IllegalArgumentException("Unknown move code: " + direction);
+        };
+    }
+
+    /**
+     * Applies all four moves to a packed board at once. Each row and column is extracted
+     * and looked up a single time, and the board is transposed once for both vertical
+     * moves, so this is cheaper than four calls to {@link #move} and {@link #score}.
+     *
+     * @param board The packed board
+     * @param out   The move set to fill in
+     * @return The legal move mask (see {@link MoveSet#legalMask()})
+     */
+    public static int moveAll(long board, MoveSet out) {
+        long transposed = transpose(board);
+        long left = 0, right = 0, up = 0, down = 0;
+        int horizontalScore = 0, verticalScore = 0;
+        for (int shift = 0; shift < 64; shift += 16) {
+            int row = (int) (board >>> shift) & 0xFFFF, col = (int) (transposed >>> shift) & 0xFFFF;
+            left |= (long) ROW_LEFT[row] << shift;
+            right |= (long) ROW_RIGHT[row] << shift;
+            horizontalScore += ROW_SCORE[row];
+            up |= (long) ROW_LEFT[col] << shift;
+            down |= (long) ROW_RIGHT[col] << shift;
+            verticalScore += ROW_SCORE[col];
+        }
+        int legal = (up != transposed ? 1 << Board.UP : 0) | (down != transposed ? 1 << Board.DOWN : 0)
+                | (left != board ? 1 << Board.LEFT : 0) | (right != board ? 1 << Board.RIGHT : 0);
+        out.set(transpose(up), right, transpose(down), left, verticalScore, horizontalScore, legal);
+        return legal;
+    }
+
+    /**
+     * Returns the score a move would gain, which is the sum of the merged tile values.
+     *
+     * @param board     The packed board
+     * @param direction The move code (see {@link Board})
+     * @return The score gained by the move
+     */
+    public static int score(long board, int direction) {
+        long rows = (direction == Board.UP || direction == Board.DOWN) ? transpose(board) : board;
+        return ROW_SCORE[(int) rows & 0xFFFF] + ROW_SCORE[(int) (rows >>> 16) & 0xFFFF]
+                + ROW_SCORE[(int) (rows >>> 32) & 0xFFFF] + ROW_SCORE[(int) (rows >>> 48) & 0xFFFF];
+    }
+
+    /**
+     * Returns whether any move changes the board.
+     *
+     * @param board The packed board
+     * @return True if at least one move is legal
+     */
+    public static boolean canMove(long board) {
+        long transposed = transpose(board);
+        return moveRows(board, ROW_LEFT) != board || moveRows(board, ROW_RIGHT) != board
+                || moveRows(transposed, ROW_LEFT) != transposed || moveRows(transposed, ROW_RIGHT) != transposed;
+    }
+
+    /**
+     * Returns the number of empty cells on the board.
+     *
+     * @param board The packed board
+     * @return The number of cells holding a 0 exponent
+     */
+    public static int emptyCells(long board) {
+        // Fold each nibble to a single bit that is set when the nibble is non-zero
+        long occupied = board | (board >>> 1);
+        occupied |= occupied >>> 2;
+        return Board.CELLS - Long.bitCount(occupied & 0x1111111111111111L);
+    }
+
+    /**
+     * Adds a tile to a random empty cell using the same odds as {@link com._2048.GameEngine#generateTile}:
+     * a 4 one time in five, otherwise a 2.
+     *
+     * @param board The packed board
+     * @param rand  The random number generator to use
+     * @return The packed board with the new tile, or the same board if it is full
+     */
+    public static long spawn(long board, RandomGenerator rand) {
+        int empty = emptyCells(board);
+        if (empty == 0)
+            return board;
+        int exponent = spawnExponent(rand);
+        int target = rand.nextInt(empty);
+        for (int cell = 0; cell < Board.CELLS; cell++) {
+            if (Board.exponent(board, cell) == 0 && target-- == 0)
+                return board | ((long) exponent << (cell << 2));
+        }
+        return board;
+    }
+
+    /**
+     * Picks the exponent of a new tile: 2 (a 4) one time in five, otherwise 1 (a 2).
+     *
+     * @param rand The random number generator to use
+     * @return The exponent of the new tile
+     */
+    static int spawnExponent(RandomGenerator rand) {
+        return (rand.nextInt(1, 6) % 4 == 0) ? 2 : 1;
+    }
+
+    /**
+     * Swaps rows and columns, so that cell (row, col) becomes cell (col, row).
+     *
+     * @param board The packed board
+     * @return The transposed board
+     */
+    public static long transpose(long board) {
+        long a1 = board & 0xF0F00F0FF0F00F0FL;
+        long a2 = board & 0x0000F0F00000F0F0L;
+        long a3 = board & 0x0F0F00000F0F0000L;
+        long a = a1 | (a2 << 12) | (a3 >>> 12);
+        long b1 = a & 0xFF00FF0000FF00FFL;
+        long b2 = a & 0x00FF00FF00000000L;
+        long b3 = a & 0x00000000FF00FF00L;
+        return b1 | (b2 >>> 24) | (b3 << 24);
+    }
+
+    private static long moveRows(long board, char[] table) {
+        return table[(int) board & 0xFFFF]
+                | ((long) table[(int) (board >>> 16) & 0xFFFF] << 16)
+                | ((long) table[(int) (board >>> 32) & 0xFFFF] << 32)
+                | ((long) table[(int) (board >>> 48) & 0xFFFF] << 48);
+    }
+
+    /**
+     * Slides and merges a line of exponents towards index 0, in place. This is the merge
+     * rule shared by every packed and byte-array engine.
+     *
+     * @param cells       The exponents of the line
+     * @param length      The number of cells in the line
+     * @param maxExponent The largest exponent that may still merge into a bigger one
+     * @return The score gained by the merges
+     */
+    static int slide(int[] cells, int length, int maxExponent) {
+        int score = 0, write = 0, last = 0; // last is the exponent still able to merge
+        for (int read = 0; read < length; read++) {
+            int e = cells[read];
+            if (e == 0)
+                continue;
+            if (e == last && e < maxExponent) {
+                cells[write - 1] = e + 1;
+                score += 1 << (e + 1);
+                last = 0;
+            } else {
+                cells[write++] = e;
+                last = e;
+            }
+        }
+        for (int c = write; c < length; c++)
+            cells[c] = 0;
+        return score;
+    }
+
+    private static int reverse(int row) {
+        return ((row & 0xF) << 12) | ((row & 0xF0) << 4) | ((row >>> 4) & 0xF0) | ((row >>> 12) & 0xF);
+    }
+}
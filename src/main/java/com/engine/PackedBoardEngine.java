@@ -0,0 +1,100 @@
+/**
+ * PackedBoardEngine.java
+ * A board of up to 4x4 cells packed into a single long.
+ */
+package com.engine;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * The PackedBoardEngine class stores a board of up to 4x4 cells in one long, 4 bits per
+ * cell, with cell (row, col) at nibble {@code row * size + col}. For a 4x4 board this is
+ * the same layout as {@link Board}. Moves are made by the {@link PackedMoves} for the board
+ * width.
+ */
+public final class PackedBoardEngine implements BoardEngine {
+    public final static int MAX_SIZE = PackedMoves.MAX_SIZE; // The largest board that fits in a long
+
+    private final int size;
+    private final PackedMoves moves; // The row tables for this width, shared by every engine
+    private long board;
+
+    PackedBoardEngine(int size) {
+        this.size = size;
+        this.moves = PackedMoves.of(size);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        board = 0;
+    }
+
+    @Override
+    public int getExponent(int row, int col) {
+        return (int) (board >>> ((row * size + col) << 2)) & 0xF;
+    }
+
+    @Override
+    public void setExponent(int row, int col, int exponent) {
+        int shift = (row * size + col) << 2;
+        board = (board & ~(0xFL << shift)) | ((long) Math.min(exponent, Board.MAX_EXPONENT) << shift);
+    }
+
+    /**
+     * Returns the packed board.
+     *
+     * @return The board as a long
+     */
+    public long getBoard() {
+        return board;
+    }
+
+    /**
+     * Replaces the packed board.
+     *
+     * @param board The board as a long
+     */
+    public void setBoard(long board) {
+        this.board = board;
+    }
+
+    @Override
+    public int move(int direction) {
+        long moved = moves.move(board, direction);
+        if (moved == board)
+            return -1;
+        int score = moves.score(board, direction);
+        board = moved;
+        return score;
+    }
+
+    @Override
+    public boolean canMove() {
+        return moves.canMove(board);
+    }
+
+    @Override
+    public int emptyCells() {
+        return moves.emptyCells(board);
+    }
+
+    @Override
+    public boolean spawn(RandomGenerator rand) {
+        int empty = emptyCells();
+        if (empty == 0)
+            return false;
+        int target = rand.nextInt(empty);
+        for (int cell = 0; cell < size * size; cell++) {
+            if (((board >>> (cell << 2)) & 0xF) == 0 && target-- == 0) {
+                board |= (long) Moves.spawnExponent(rand) << (cell << 2);
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ * PackedMoves.java
+ * Stateless moves on packed boards of up to 4x4 cells.
+ */
+package com.engine;
+
+/**
+ * The PackedMoves class moves boards of up to 4x4 cells packed into a long, 4 bits per cell
+ * with cell (row, col) at nibble {@code row * size + col}, as {@link PackedBoardEngine}
+ * stores them. Rows are moved with lookup tables built for the board width and the largest
+ * exponent a tile may reach; columns are moved as the rows of the transposed board.
+ * <p>
+ * Lowering the largest exponent gives the restricted-tile variants used for analysis: a
+ * tile that has reached it no longer merges. Instances are immutable and shared, so they
+ * are safe to use from any number of threads.
+ */
+public final class PackedMoves {
+    public final static int MAX_SIZE = 4; // The largest board that fits in a long
+
+    private final static PackedMoves[][] CACHE = new PackedMoves[MAX_SIZE + 1][Board.MAX_EXPONENT + 1];
+
+    private final int size, maxExponent, rowBits, rowMask;
+    private final long cellMask; // One set bit at the bottom of every nibble in use
+    private final char[] rowLeft, rowRight;
+    private final int[] rowScore;
+
+    private PackedMoves(int size, int maxExponent) {
+        this.size = size;
+        this.maxExponent = maxExponent;
+        this.rowBits = size << 2;
+        this.rowMask = (1 << rowBits) - 1;
+        long mask = 0;
+        for (int cell = 0; cell < size * size; cell++)
+            mask |= 1L << (cell << 2);
+        this.cellMask = mask;
+
+        int rows = 1 << rowBits;
+        this.rowLeft = new char[rows];
+        this.rowRight = new char[rows];
+        this.rowScore = new int[rows];
+        int[] cells = new int[size];
+        for (int row = 0; row < rows; row++) {
+            for (int c = 0; c < size; c++)
+                cells[c] = (row >>> (c << 2)) & 0xF;
+            rowScore[row] = Moves.slide(cells, size, maxExponent);
+            int moved = 0;
+            for (int c = 0; c < size; c++)
+                moved |= cells[c] << (c << 2);
+            rowLeft[row] = (char) moved;
+        }
+        for (int row = 0; row < rows; row++)
+            rowRight[row] = (char) reverse(rowLeft[reverse(row)]);
+    }
+
+    /**
+     * Returns the moves for a board width with the game's own tile limit.
+     *
+     * @param size The width and height of the board
+     * @return The shared moves for that width
+     */
+    public static PackedMoves of(int size) {
+        return of(size, Board.MAX_EXPONENT);
+    }
+
+    /**
+     * Returns the moves for a board width where tiles stop merging at the given exponent,
+     * building the row tables the first time they are needed.
+     *
+     * @param size        The width and height of the board
+     * @param maxExponent The largest exponent a merge may create
+     * @return The shared moves for that width and limit
+     */
+    public static synchronized PackedMoves of(int size, int maxExponent) {
+        if (size < BoardEngine.MIN_SIZE || size > MAX_SIZE)
+            throw new IllegalArgumentException("Packed board size must be between " + BoardEngine.MIN_SIZE + " and " + MAX_SIZE);
+        if (maxExponent < 1 || maxExponent > Board.MAX_EXPONENT)
+            throw new IllegalArgumentException("Largest exponent must be between 1 and " + Board.MAX_EXPONENT);
+        if (CACHE[size][maxExponent] == null)
+            CACHE[size][maxExponent] = new PackedMoves(size, maxExponent);
+        return CACHE[size][maxExponent];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int maxExponent() {
+        return maxExponent;
+    }
+
+    /**
+     * Moves a board.
+     *
+     * @param board     The packed board
+     * @param direction The move code
+     * @return The moved board, equal to {@code board} if the move changes nothing
+     */
+    public long move(long board, int direction) {
+        boolean columns = direction == Board.UP || direction == Board.DOWN;
+        char[] table = (direction == Board.UP || direction == Board.LEFT) ? rowLeft : rowRight;
+        long rows = columns ? transpose(board) : board;
+        long moved = 0;
+        for (int r = 0; r < size; r++)
+            moved |= (long) table[(int) (rows >>> (r * rowBits)) & rowMask] << (r * rowBits);
+        return columns ? transpose(moved) : moved;
+    }
+
+    /**
+     * Returns the score a move gains.
+     *
+     * @param board     The packed board
+     * @param direction The move code
+     * @return The sum of the tiles created by merges
+     */
+    public int score(long board, int direction) {
+        long rows = (direction == Board.UP || direction == Board.DOWN) ? transpose(board) : board;
+        int score = 0;
+        for (int r = 0; r < size; r++)
+            score += rowScore[(int) (rows >>> (r * rowBits)) & rowMask];
+        return score;
+    }
+
+    /**
+     * Returns whether any move changes the board.
+     *
+     * @param board The packed board
+     * @return True if the game is not over
+     */
+    public boolean canMove(long board) {
+        long transposed = transpose(board);
+        for (int r = 0; r < size; r++) {
+            int row = (int) (board >>> (r * rowBits)) & rowMask;
+            int col = (int) (transposed >>> (r * rowBits)) & rowMask;
+            if (rowLeft[row] != row || rowRight[row] != row || rowLeft[col] != col || rowRight[col] != col)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of empty cells.
+     *
+     * @param board The packed board
+     * @return The number of cells holding exponent 0
+     */
+    public int emptyCells(long board) {
+        long occupied = board | (board >>> 1);
+        occupied |= occupied >>> 2;
+        return size * size - Long.bitCount(occupied & cellMask);
+    }
+
+    /**
+     * Returns the board mirrored along its main diagonal.
+     *
+     * @param board The packed board
+     * @return The transposed board
+     */
+    public long transpose(long board) {
+        if (size == Board.SIZE)
+            return Moves.transpose(board);
+        long t = 0;
+        for (int r = 0; r < size; r++)
+            for (int c = 0; c < size; c++)
+                t |= ((board >>> ((r * size + c) << 2)) & 0xF) << ((c * size + r) << 2);
+        return t;
+    }
+
+    private int reverse(int row) {
+        int reversed = 0;
+        for (int c = 0; c < size; c++)
+            reversed |= ((row >>> (c << 2)) & 0xF) << ((size - 1 - c) << 2);
+        return reversed;
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * Symmetry.java
+ * The 8 rotations and reflections of a packed 4x4 board.
+ */
+package com.engine;
+
+/**
+ * The Symmetry class maps packed boards (see {@link Board}) onto each other through the
+ * 8 symmetries of the square. Symmetric boards have the same value and the same best move
+ * (after mapping the move), so caches and tables can store only the canonical board.
+ * <p>
+ * A symmetry is a number from 0 to 7. Bit 0 mirrors the columns (left becomes right),
+ * bit 1 mirrors the rows (top becomes bottom), and bit 2 then transposes the board.
+ * Symmetry 0 is the identity.
+ */
+public final class Symmetry {
+    public final static int COUNT = 8; // The number of symmetries of a square board
+    public final static int MIRROR_COLUMNS = 1, MIRROR_ROWS = 2, TRANSPOSE = 4;
+
+    private Symmetry() {}
+
+    /**
+     * Applies a symmetry to a packed board.
+     *
+     * @param board    The packed board
+     * @param symmetry The symmetry (0 to 7)
+     * @return The transformed board
+     */
+    public static long apply(long board, int symmetry) {
+        if ((symmetry & MIRROR_COLUMNS) != 0)
+            board = mirrorColumns(board);
+        if ((symmetry & MIRROR_ROWS) != 0)
+            board = mirrorRows(board);
+        if ((symmetry & TRANSPOSE) != 0)
+            board = Moves.transpose(board);
+        return board;
+    }
+
+    /**
+     * Returns the symmetry that undoes the given one, so that
+     * {@code apply(apply(board, s), inverse(s)) == board}.
+     *
+     * @param symmetry The symmetry (0 to 7)
+     * @return The inverse symmetry
+     */
+    public static int inverse(int symmetry) {
+        if ((symmetry & TRANSPOSE) == 0)
+            return symmetry;
+        // Transposing first turns a column mirror into a row mirror and vice versa
+        return TRANSPOSE | ((symmetry & MIRROR_COLUMNS) << 1) | ((symmetry & MIRROR_ROWS) >>> 1);
+    }
+
+    /**
+     * Returns the smallest board, compared as unsigned longs, among the 8 symmetric
+     * images of the given board.
+     *
+     * @param board The packed board
+     * @return The canonical representative of the board
+     */
+    public static long canonical(long board) {
+        return apply(board, canonicalSymmetry(board));
+    }
+
+    /**
+     * Returns the symmetry that turns the given board into its canonical representative.
+     *
+     * @param board The packed board
+     * @return The symmetry (0 to 7) such that {@code apply(board, s) == canonical(board)}
+     */
+    public static int canonicalSymmetry(long board) {
+        long c = mirrorColumns(board), r = mirrorRows(board), cr = mirrorRows(c);
+        long best = board;
+        int symmetry = 0;
+        if (Long.compareUnsigned(c, best) < 0) { best = c; symmetry = MIRROR_COLUMNS; }
+        if (Long.compareUnsigned(r, best) < 0) { best = r; symmetry = MIRROR_ROWS; }
+        if (Long.compareUnsigned(cr, best) < 0) { best = cr; symmetry = MIRROR_COLUMNS | MIRROR_ROWS; }
+        long t = Moves.transpose(board), tc = Moves.transpose(c), tr = Moves.transpose(r), tcr = Moves.transpose(cr);
+        if (Long.compareUnsigned(t, best) < 0) { best = t; symmetry = TRANSPOSE; }
+        if (Long.compareUnsigned(tc, best) < 0) { best = tc; symmetry = TRANSPOSE | MIRROR_COLUMNS; }
+        if (Long.compareUnsigned(tr, best) < 0) { best = tr; symmetry = TRANSPOSE | MIRROR_ROWS; }
+        if (Long.compareUnsigned(tcr, best) < 0) { symmetry = TRANSPOSE | MIRROR_COLUMNS | MIRROR_ROWS; }
+        return symmetry;
+    }
+
+    /**
+     * Maps a move through a symmetry: making the returned move on {@code apply(board, s)}
+     * gives the same result as making the given move on {@code board} and then applying {@code s}.
+     *
+     * @param direction The move code (see {@link Board})
+     * @param symmetry  The symmetry (0 to 7)
+     * @return The move code on the transformed board
+     */
+    public static int mapMove(int direction, int symmetry) {
+        if ((symmetry & MIRROR_COLUMNS) != 0 && (direction == Board.LEFT || direction == Board.RIGHT))
+            direction = direction == Board.LEFT ? Board.RIGHT : Board.LEFT;
+        if ((symmetry & MIRROR_ROWS) != 0 && (direction == Board.UP || direction == Board.DOWN))
+            direction = direction == Board.UP ? Board.DOWN : Board.UP;
+        if ((symmetry & TRANSPOSE) != 0)
+            direction = switch (direction) {
+                case Board.UP -> Board.LEFT;
+                case Board.LEFT -> Board.UP;
+                case Board.DOWN -> Board.RIGHT;
+                default -> Board.DOWN;
+            };
+        return direction;
+    }
+
+    /**
+     * Maps a cell index through a symmetry: the tile in the given cell of a board is found in
+     * the returned cell of {@code apply(board, s)}.
+     *
+     * @param cell     The cell index (row * 4 + col)
+     * @param symmetry The symmetry (0 to 7)
+     * @return The cell index on the transformed board
+     */
+    public static int mapCell(int cell, int symmetry) {
+        int row = cell / Board.SIZE, col = cell % Board.SIZE;
+        if ((symmetry & MIRROR_COLUMNS) != 0)
+            col = Board.SIZE - 1 - col;
+        if ((symmetry & MIRROR_ROWS) != 0)
+            row = Board.SIZE - 1 - row;
+        return (symmetry & TRANSPOSE) != 0 ? col * Board.SIZE + row : row * Board.SIZE + col;
+    }
+
+    /**
+     * Reverses the order of the cells in every row (a left-right mirror).
+     *
+     * @param board The packed board
+     * @return The mirrored board
+     */
+    public static long mirrorColumns(long board) {
+        return ((board & 0xF000F000F000F000L) >>> 12) | ((board & 0x0F000F000F000F00L) >>> 4)
+                | ((board & 0x00F000F000F000F0L) << 4) | ((board & 0x000F000F000F000FL) << 12);
+    }
+
+    /**
+     * Reverses the order of the rows (a top-bottom mirror).
+     *
+     * @param board The packed board
+     * @return The mirrored board
+     */
+    public static long mirrorRows(long board) {
+        board = (board >>> 32) | (board << 32);
+        return ((board >>> 16) & 0x0000FFFF0000FFFFL) | ((board & 0x0000FFFF0000FFFFL) << 16);
+    }
+}
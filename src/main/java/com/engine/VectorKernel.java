@@ -0,0 +1,140 @@
+/**
+ * VectorKernel.java
+ * The Vector API half of BatchEngine.
+ */
+package com.engine;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The VectorKernel class moves many packed boards at once with the incubating Vector API.
+ * It is only loaded when the {@code jdk.incubator.vector} module is present (see
+ * {@link BatchEngine#isVectorized()}), so the rest of the engine runs without it.
+ * <p>
+ * One pass handles as many boards as fit in the widest long vector. The boards whose move
+ * is vertical are transposed with the same bit tricks as {@link Moves#transpose}, applied
+ * lane by lane, so every board is then moved by rows. Each of the four rows is looked up
+ * in a combined table of left and right moves with a gather, and the same row indices
+ * gather the scores. The result is transposed back where needed and compared with the
+ * original to find the boards that changed.
+ */
+final class VectorKernel {
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    // Ints with as many lanes as the longs, so the two can be converted lane for lane; null
+    // when the hardware has no vectors wider than one long
+    private static final VectorSpecies<Integer> INTS = LONGS.length() < 2 ? null
+            : VectorSpecies.of(int.class, VectorShape.forBitSize(LONGS.vectorBitSize() / 2));
+    private static final int RIGHT_OFFSET = 1 << 16; // Where the right moves start in ROW_MOVES
+    private static final int[] ROW_MOVES = new int[2 * RIGHT_OFFSET], ROW_SCORE = new int[RIGHT_OFFSET];
+
+    static {
+        // A board holding only a bottom row moves that row and nothing else
+        for (int row = 0; row < RIGHT_OFFSET; row++) {
+            ROW_MOVES[row] = (int) Moves.move(row, Board.LEFT);
+            ROW_MOVES[RIGHT_OFFSET + row] = (int) Moves.move(row, Board.RIGHT);
+            ROW_SCORE[row] = Moves.score(row, Board.LEFT);
+        }
+    }
+
+    private VectorKernel() {}
+
+    /**
+     * Returns whether the hardware has vectors of at least two longs, without which the
+     * scalar code is faster.
+     */
+    static boolean usable() {
+        return INTS != null;
+    }
+
+    /**
+     * Returns the number of boards moved per pass.
+     */
+    static int lanes() {
+        return LONGS.length();
+    }
+
+    /**
+     * Moves the boards in [from, to) by their actions, writing the moved boards back, the
+     * score of each move into {@code rewards}, or 0 where the board did not change, and
+     * whether it changed into {@code changed}. Boards that are over, and actions that are not
+     * move codes, are left alone.
+     *
+     * @return The index after the last board handled, a whole number of passes from
+     *         {@code from}; the caller moves the rest
+     */
+    static int move(long[] boards, int[] actions, boolean[] over, int[] rewards, boolean[] changed,
+                    int from, int to) {
+        int[] indices = new int[INTS.length()];
+        int i = from;
+        for (int upper = from + LONGS.loopBound(to - from); i < upper; i += LONGS.length()) {
+            LongVector board = LongVector.fromArray(LONGS, boards, i);
+            IntVector action = IntVector.fromArray(INTS, actions, i);
+            VectorMask<Integer> valid = action.compare(VectorOperators.GE, Board.UP)
+                    .and(action.compare(VectorOperators.LE, Board.LEFT))
+                    .andNot(VectorMask.fromArray(INTS, over, i));
+            VectorMask<Integer> verticalInts = action.compare(VectorOperators.EQ, Board.UP)
+                    .or(action.compare(VectorOperators.EQ, Board.DOWN));
+            VectorMask<Integer> towardsEnd = action.compare(VectorOperators.EQ, Board.RIGHT)
+                    .or(action.compare(VectorOperators.EQ, Board.DOWN));
+            VectorMask<Long> vertical = verticalInts.cast(LONGS);
+
+            LongVector rows = board.blend(transpose(board), vertical);
+            IntVector tableOffset = IntVector.zero(INTS).blend(RIGHT_OFFSET, towardsEnd);
+            LongVector moved = LongVector.zero(LONGS);
+            IntVector reward = IntVector.zero(INTS);
+            for (int shift = 0; shift < 64; shift += 16) {
+                IntVector row = (IntVector) rows.lanewise(VectorOperators.LSHR, shift).and(0xFFFF)
+                        .convertShape(VectorOperators.L2I, INTS, 0);
+                row.intoArray(indices, 0);
+                reward = reward.add(IntVector.fromArray(INTS, ROW_SCORE, 0, indices, 0));
+                row.add(tableOffset).intoArray(indices, 0);
+                LongVector movedRow = (LongVector) IntVector.fromArray(INTS, ROW_MOVES, 0, indices, 0)
+                        .convertShape(VectorOperators.I2L, LONGS, 0);
+                moved = moved.or(movedRow.lanewise(VectorOperators.LSHL, shift));
+            }
+            moved = moved.blend(transpose(moved), vertical);
+
+            VectorMask<Long> moves = moved.compare(VectorOperators.NE, board).and(valid.cast(LONGS));
+            moved.intoArray(boards, i, moves);
+            reward.blend(0, moves.cast(INTS).not()).intoArray(rewards, i);
+            moves.intoArray(changed, i);
+        }
+        return i;
+    }
+
+    /**
+     * Counts the empty cells of the boards in [from, to) into {@code empty}.
+     *
+     * @return The index after the last board handled; the caller counts the rest
+     */
+    static int emptyCells(long[] boards, int[] empty, int from, int to) {
+        int i = from;
+        for (int upper = from + LONGS.loopBound(to - from); i < upper; i += LONGS.length()) {
+            LongVector board = LongVector.fromArray(LONGS, boards, i);
+            LongVector occupied = board.or(board.lanewise(VectorOperators.LSHR, 1));
+            occupied = occupied.or(occupied.lanewise(VectorOperators.LSHR, 2)).and(0x1111111111111111L);
+            LongVector count = occupied.lanewise(VectorOperators.BIT_COUNT).neg().add(Board.CELLS);
+            ((IntVector) count.convertShape(VectorOperators.L2I, INTS, 0)).intoArray(empty, i);
+        }
+        return i;
+    }
+
+    /**
+     * {@link Moves#transpose} on every lane.
+     */
+    private static LongVector transpose(LongVector board) {
+        LongVector a1 = board.and(0xF0F00F0FF0F00F0FL);
+        LongVector a2 = board.and(0x0000F0F00000F0F0L);
+        LongVector a3 = board.and(0x0F0F00000F0F0000L);
+        LongVector a = a1.or(a2.lanewise(VectorOperators.LSHL, 12)).or(a3.lanewise(VectorOperators.LSHR, 12));
+        LongVector b1 = a.and(0xFF00FF0000FF00FFL);
+        LongVector b2 = a.and(0x00FF00FF00000000L);
+        LongVector b3 = a.and(0x00000000FF00FF00L);
+        return b1.or(b2.lanewise(VectorOperators.LSHR, 24)).or(b3.lanewise(VectorOperators.LSHL, 24));
+    }
+}
@@ -0,0 +1,139 @@
+package com.env;
+
+import com.engine.Board;
+import com.engine.BoardEngine;
+import com.engine.PackedBoardEngine;
+import com.engine.PackedMoves;
+
+import java.util.Random;
+
+/**
+ * A reinforcement learning environment for 2048 in the style of Gym: {@link #reset(long)}
+ * starts a seeded game, and {@link #step(int)} makes a move and reports the observation,
+ * the reward, whether the game is done and the legal moves.
+ * <p>
+ * Games are played on a {@link BoardEngine}, the headless engine with the move and merge
+ * rules of {@link com._2048.GameEngine}, so nothing here needs JavaFX. Steps do not
+ * allocate: the result is a reused {@link Step} whose observation is a reused buffer, and
+ * the engine moves tiles in place. Games are not stopped at 2048, as an agent is meant to
+ * keep going for as long as it can.
+ * <p>
+ * An environment is not thread-safe; {@link VectorEnvironment} runs many on a thread pool.
+ */
+public final class Environment {
+    private final int size;
+    private final BoardEngine engine, probe; // The game, and a scratch board for testing moves
+    private final PackedMoves packedMoves; // Non-null when the board fits in a long
+    private final Random rand = new Random();
+    private final Step step;
+
+    /**
+     * @param size The width and height of the board (see {@link BoardEngine} for the supported sizes)
+     */
+    public Environment(int size) {
+        this.size = size;
+        this.engine = BoardEngine.create(size);
+        this.probe = BoardEngine.create(size);
+        this.packedMoves = engine instanceof PackedBoardEngine ? PackedMoves.of(size) : null;
+        this.step = new Step(size * size);
+        reset(0);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Starts a new game: an empty board with two random tiles.
+     *
+     * @param seed The seed for every tile of the game, so the same moves replay the same game
+     * @return The first observation
+     */
+    public Step reset(long seed) {
+        rand.setSeed(seed);
+        engine.clear();
+        engine.spawn(rand);
+        engine.spawn(rand);
+        step.score = 0;
+        step.moves = 0;
+        step.reward = 0;
+        step.changed = false;
+        observe();
+        return step;
+    }
+
+    /**
+     * Makes a move. A legal move slides and merges the tiles and adds a new tile; an illegal
+     * one, or any move once the game is done, changes nothing and gains nothing.
+     *
+     * @param action The move code (see {@link Board})
+     * @return The outcome of the move
+     * @throws IllegalArgumentException If the action is not a move code
+     */
+    public Step step(int action) {
+        if (action < Board.UP || action > Board.LEFT)
+            throw new IllegalArgumentException("Unknown move code: " + action);
+        step.reward = 0;
+        step.changed = false;
+        if ((step.legalMask & (1 << action)) == 0)
+            return step;
+        step.reward = engine.move(action);
+        engine.spawn(rand);
+        step.score += step.reward;
+        step.moves++;
+        step.changed = true;
+        observe();
+        return step;
+    }
+
+    /**
+     * Returns the outcome of the last reset or step.
+     *
+     * @return The reused step
+     */
+    public Step last() {
+        return step;
+    }
+
+    /**
+     * Returns the board packed into a long (see {@link PackedMoves} for the layout).
+     *
+     * @return The packed board
+     * @throws IllegalStateException If the board is larger than 4x4
+     */
+    public long packedBoard() {
+        if (!(engine instanceof PackedBoardEngine packed))
+            throw new IllegalStateException("A " + size + "x" + size + " board does not fit in a long");
+        return packed.getBoard();
+    }
+
+    /**
+     * Copies the board into the observation and works out the legal moves.
+     */
+    private void observe() {
+        int[] observation = step.observation;
+        int legal = 0;
+        if (packedMoves != null) {
+            // Cell i of a packed board is its i-th nibble
+            long board = ((PackedBoardEngine) engine).getBoard();
+            for (int i = 0; i < observation.length; i++)
+                observation[i] = (int) (board >>> (i << 2)) & 0xF;
+            for (int direction = 0; direction < 4; direction++)
+                if (packedMoves.move(board, direction) != board)
+                    legal |= 1 << direction;
+        } else {
+            for (int row = 0, i = 0; row < size; row++)
+                for (int col = 0; col < size; col++)
+                    observation[i++] = engine.getExponent(row, col);
+            for (int direction = 0; direction < 4; direction++) {
+                for (int row = 0, i = 0; row < size; row++)
+                    for (int col = 0; col < size; col++)
+                        probe.setExponent(row, col, observation[i++]);
+                if (probe.move(direction) >= 0)
+                    legal |= 1 << direction;
+            }
+        }
+        step.legalMask = legal;
+        step.done = legal == 0;
+    }
+}
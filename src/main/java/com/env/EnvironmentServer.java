@@ -0,0 +1,132 @@
+package com.env;
+
+import com.engine.BoardEngine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+/**
+ * Serves {@link Environment}s to learners in other processes over a local TCP socket. Each
+ * connection gets an environment of its own, played on its own virtual thread.
+ * <p>
+ * The protocol is binary and big-endian, as written by {@link DataOutputStream}. On
+ * connecting, the server sends {@link #MAGIC} and the board size as two ints. The learner
+ * then sends requests, each answered by one step frame:
+ * <ul>
+ *     <li>{@code 'R'} and a long seed: {@link Environment#reset(long)}</li>
+ *     <li>{@code 'S'} and a byte move code: {@link Environment#step(int)}</li>
+ *     <li>{@code 'Q'}: closes the connection, with no answer</li>
+ * </ul>
+ * A step frame is the reward, the score and the move count as ints, the done flag and the
+ * legal move mask as bytes, then the observation as one byte per cell (see
+ * {@link Step#observation()}). The server only listens on the loopback address.
+ */
+public final class EnvironmentServer {
+    public static final int DEFAULT_PORT = 2049;
+    public static final int MAGIC = 0x32303438; // "2048"
+
+    public static final byte RESET = 'R', STEP = 'S', QUIT = 'Q';
+
+    private final int size;
+    private ServerSocket serverSocket;
+    private volatile boolean running = true;
+
+    /**
+     * @param size The width and height of the boards served
+     */
+    public EnvironmentServer(int size) {
+        if (size < BoardEngine.MIN_SIZE || size > BoardEngine.MAX_SIZE)
+            throw new IllegalArgumentException("Board size must be between " + BoardEngine.MIN_SIZE + " and "
+                    + BoardEngine.MAX_SIZE);
+        this.size = size;
+    }
+
+    /**
+     * Starts accepting learners on a virtual thread.
+     *
+     * @param port The port to listen on, or 0 for any free port
+     * @return The port listened on
+     */
+    public int start(int port) throws IOException {
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        Thread.ofVirtual().name("environment-accept").start(() -> {
+            while (running) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    Thread.ofVirtual().name("environment-" + socket.getPort()).start(() -> serve(socket));
+                } catch (IOException e) {
+                    if (running) System.err.println("Environment accept error: " + e.getMessage());
+                }
+            }
+        });
+        return serverSocket.getLocalPort();
+    }
+
+    public void stop() {
+        running = false;
+        try {
+            if (serverSocket != null) serverSocket.close();
+        } catch (IOException e) {
+            System.err.println("Error stopping environment server: " + e.getMessage());
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            Environment environment = new Environment(size);
+            byte[] cells = new byte[size * size];
+            out.writeInt(MAGIC);
+            out.writeInt(size);
+            out.flush();
+            while (true) {
+                byte request = in.readByte();
+                Step step;
+                if (request == RESET) {
+                    step = environment.reset(in.readLong());
+                } else if (request == STEP) {
+                    step = environment.step(in.readByte());
+                } else if (request == QUIT) {
+                    return;
+                } else {
+                    throw new IOException("Unknown request: " + request);
+                }
+                out.writeInt(step.reward);
+                out.writeInt(step.score);
+                out.writeInt(step.moves);
+                out.writeByte(step.done ? 1 : 0);
+                out.writeByte(step.legalMask);
+                for (int i = 0; i < cells.length; i++)
+                    cells[i] = (byte) step.observation[i];
+                out.write(cells);
+                out.flush();
+            }
+        } catch (EOFException e) {
+            // The learner went away without saying goodbye
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Environment connection error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Serves environments until the process is stopped.
+     * <p>
+     * Usage: {@code EnvironmentServer [port] [size]}
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length >= 1 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int size = args.length >= 2 ? Integer.parseInt(args[1]) : 4;
+        EnvironmentServer server = new EnvironmentServer(size);
+        System.out.println("Environment server for " + size + "x" + size + " boards on port " + server.start(port));
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,61 @@
+package com.env;
+
+/**
+ * The outcome of {@link Environment#reset} or {@link Environment#step}: the observation,
+ * the reward, whether the game is done and which moves are legal.
+ * <p>
+ * An environment returns the same Step object from every call, and the observation is its
+ * own buffer, so nothing is allocated per step. Copy anything that has to outlive the next
+ * call.
+ */
+public final class Step {
+    final int[] observation;
+    int reward, score, moves, legalMask;
+    boolean done, changed;
+
+    Step(int cells) {
+        this.observation = new int[cells];
+    }
+
+    /**
+     * Returns the board as one exponent per cell in row-major order: 0 for an empty cell, 1
+     * for a 2, 2 for a 4, and so on.
+     *
+     * @return The environment's observation buffer
+     */
+    public int[] observation() { return observation; }
+
+    /**
+     * Returns the score gained by the move, which is the sum of the tiles it merged.
+     *
+     * @return The reward, 0 after a reset or a move that changed nothing
+     */
+    public int reward() { return reward; }
+
+    /**
+     * Returns whether the game is over, after which every step is ignored until a reset.
+     *
+     * @return True if no move can change the board
+     */
+    public boolean done() { return done; }
+
+    /**
+     * Returns the legal moves as a bit mask: bit {@code d} is set if move code {@code d}
+     * (see {@link com.engine.Board}) would change the board.
+     *
+     * @return The legal move mask, 0 when the game is done
+     */
+    public int legalMask() { return legalMask; }
+
+    /**
+     * Returns whether the move changed the board. A move that changes nothing is not
+     * counted and adds no tile.
+     *
+     * @return False after a reset or an illegal move
+     */
+    public boolean changed() { return changed; }
+
+    public int score() { return score; }
+
+    public int moves() { return moves; }
+}
@@ -0,0 +1,205 @@
+package com.env;
+
+import com.engine.Board;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Many {@link Environment}s reset and stepped together, split over a fixed pool of worker
+ * threads.
+ * <p>
+ * The results are kept as a structure of arrays that are reused for every step: the
+ * observations of all environments one after another in a single {@code int[]}, then the
+ * rewards, done flags and legal move masks indexed by environment. Each worker steps a
+ * contiguous slice of the environments and writes only its own part of the arrays. The
+ * seed of every game is drawn from one generator in index order, so a batch plays the same
+ * games whatever the number of threads.
+ */
+public final class VectorEnvironment implements AutoCloseable {
+    private final int count, cells;
+    private final Environment[] environments;
+    private final int[] observations, rewards, scores, legalMasks;
+    private final boolean[] dones;
+    private final ExecutorService pool; // Null when stepping on the calling thread
+    private final List<Callable<Void>> slices = new ArrayList<>(); // One task per worker, built once
+    private SplittableRandom seeds = new SplittableRandom(0);
+    private int[] actions; // The actions of the step in progress
+
+    /**
+     * @param count   The number of environments
+     * @param size    The width and height of every board
+     * @param threads The number of worker threads; 1 steps on the calling thread
+     */
+    public VectorEnvironment(int count, int size, int threads) {
+        if (count < 1 || threads < 1)
+            throw new IllegalArgumentException("Need at least one environment and one thread");
+        this.count = count;
+        this.cells = size * size;
+        this.environments = new Environment[count];
+        for (int i = 0; i < count; i++)
+            environments[i] = new Environment(size);
+        this.observations = new int[count * cells];
+        this.rewards = new int[count];
+        this.scores = new int[count];
+        this.legalMasks = new int[count];
+        this.dones = new boolean[count];
+
+        threads = Math.min(threads, count);
+        this.pool = threads == 1 ? null : Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "environment-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int t = 0; t < threads; t++) {
+            int from = (int) ((long) count * t / threads), to = (int) ((long) count * (t + 1) / threads);
+            slices.add(() -> {
+                for (int i = from; i < to; i++)
+                    record(i, environments[i].step(actions[i]));
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Starts a new game in every environment.
+     *
+     * @param seed The seed the games' seeds are drawn from
+     */
+    public void reset(long seed) {
+        seeds = new SplittableRandom(seed);
+        for (int i = 0; i < count; i++)
+            record(i, environments[i].reset(seeds.nextLong()));
+    }
+
+    /**
+     * Starts a new game in every environment whose game is done, with the next seeds of the
+     * last {@link #reset(long)}.
+     *
+     * @return The number of games restarted
+     */
+    public int resetDone() {
+        int restarted = 0;
+        for (int i = 0; i < count; i++) {
+            if (dones[i]) {
+                record(i, environments[i].reset(seeds.nextLong()));
+                restarted++;
+            }
+        }
+        return restarted;
+    }
+
+    /**
+     * Makes one move in every environment (see {@link Environment#step(int)}).
+     *
+     * @param actions One move code per environment
+     */
+    public void step(int[] actions) {
+        if (actions.length < count)
+            throw new IllegalArgumentException("Expected " + count + " actions, got " + actions.length);
+        for (int i = 0; i < count; i++) {
+            if (actions[i] < Board.UP || actions[i] > Board.LEFT)
+                throw new IllegalArgumentException("Unknown move code for environment " + i + ": " + actions[i]);
+        }
+        this.actions = actions;
+        try {
+            if (pool == null) {
+                slices.get(0).call();
+                return;
+            }
+            // Submitting the tasks publishes the actions to the workers, and their completion
+            // publishes the results back
+            for (Future<Void> slice : pool.invokeAll(slices))
+                slice.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while stepping", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("An environment failed to step", e.getCause());
+        } catch (Exception e) {
+            throw new IllegalStateException("An environment failed to step", e);
+        } finally {
+            this.actions = null;
+        }
+    }
+
+    private void record(int i, Step step) {
+        System.arraycopy(step.observation, 0, observations, i * cells, cells);
+        rewards[i] = step.reward;
+        scores[i] = step.score;
+        legalMasks[i] = step.legalMask;
+        dones[i] = step.done;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Returns the number of cells in each observation.
+     *
+     * @return The board size squared
+     */
+    public int cells() {
+        return cells;
+    }
+
+    /**
+     * Returns every observation: environment {@code i} holds cells {@code [i * cells(),
+     * (i + 1) * cells())}, as described by {@link Step#observation()}. The array is reused.
+     *
+     * @return The observations
+     */
+    public int[] observations() {
+        return observations;
+    }
+
+    /**
+     * Returns the reward of each environment's last step. The array is reused.
+     *
+     * @return The rewards
+     */
+    public int[] rewards() {
+        return rewards;
+    }
+
+    /**
+     * Returns the score of each environment's game. The array is reused.
+     *
+     * @return The scores
+     */
+    public int[] scores() {
+        return scores;
+    }
+
+    /**
+     * Returns the legal move mask of each environment (see {@link Step#legalMask()}). The
+     * array is reused.
+     *
+     * @return The legal move masks
+     */
+    public int[] legalMasks() {
+        return legalMasks;
+    }
+
+    /**
+     * Returns whether each environment's game is done. The array is reused.
+     *
+     * @return The done flags
+     */
+    public boolean[] dones() {
+        return dones;
+    }
+
+    @Override
+    public void close() {
+        if (pool != null)
+            pool.shutdownNow();
+    }
+}
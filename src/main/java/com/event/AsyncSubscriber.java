@@ -0,0 +1,119 @@
+package com.event;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * A subscriber that handles events on its own executor, created by
+ * {@link EventBus#subscribeAsync}.
+ * <p>
+ * Events wait in a bounded queue. At most one drain task per subscriber is submitted to
+ * the executor at a time, so events are handled in order even on a shared pool. When the
+ * queue is full an event is dropped rather than blocking the dispatch thread: the new one,
+ * or, for a subscriber that keeps the latest, the oldest one waiting. Subscribers to state
+ * snapshots keep the latest, so the final state of a burst, such as a game over, is never
+ * the one lost.
+ *
+ * @param <E> The event type
+ */
+public final class AsyncSubscriber<E extends GameEvent> {
+    private final String name; // The event class name, for reporting
+    private final Consumer<? super E> handler;
+    private final Executor executor;
+    private final ArrayBlockingQueue<E> queue;
+    private final boolean keepLatest; // Whether a full queue drops its oldest event rather than the new one
+    private final AtomicBoolean scheduled = new AtomicBoolean(); // Whether a drain task is pending or running
+    private final LongAdder delivered = new LongAdder(), dropped = new LongAdder();
+
+    AsyncSubscriber(String name, Consumer<? super E> handler, Executor executor, int capacity, boolean keepLatest) {
+        this.name = name;
+        this.handler = handler;
+        this.executor = executor;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.keepLatest = keepLatest;
+    }
+
+    void offer(E event) {
+        while (!queue.offer(event)) {
+            if (!keepLatest) {
+                dropped.increment();
+                return;
+            }
+            // The drain task may take the head first, in which case nothing is dropped
+            if (queue.poll() != null)
+                dropped.increment();
+        }
+        schedule();
+    }
+
+    private void schedule() {
+        if (!scheduled.compareAndSet(false, true))
+            return;
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // The executor is shutting down; the queued events are abandoned
+            scheduled.set(false);
+        }
+    }
+
+    private void drain() {
+        try {
+            E event;
+            while ((event = queue.poll()) != null) {
+                try {
+                    handler.accept(event);
+                } catch (RuntimeException e) {
+                    System.err.println("Error handling " + name + ": " + e.getMessage());
+                }
+                delivered.increment();
+            }
+        } finally {
+            scheduled.set(false);
+        }
+        // An event may have been queued after the last poll but before the flag was cleared
+        if (!queue.isEmpty())
+            schedule();
+    }
+
+    /**
+     * Returns the simple name of the event class handled.
+     *
+     * @return The event name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the number of events waiting to be handled.
+     *
+     * @return The queue depth
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Returns the most events that can wait before one is dropped.
+     *
+     * @return The queue capacity
+     */
+    public int getCapacity() {
+        return queue.size() + queue.remainingCapacity();
+    }
+
+    public long getDelivered() { return delivered.sum(); }
+
+    public long getDropped() { return dropped.sum(); }
+
+    @Override
+    public String toString() {
+        return String.format("%s{depth=%d/%d, delivered=%d, dropped=%d}",
+                name, getQueueDepth(), getCapacity(), getDelivered(), getDropped());
+    }
+}
@@ -0,0 +1,185 @@
+package com.event;
+
+import com.jfr.DispatchEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * A small typed event bus for {@link GameEvent}s.
+ * <p>
+ * Events are published and dispatched on a single thread, the one that owns the game (the
+ * JavaFX application thread for the UI). Synchronous subscribers run inline, in the order
+ * they subscribed, and may publish further events from inside a handler. Asynchronous
+ * subscribers (see {@link #subscribeAsync}) only have the event queued on the dispatch
+ * thread and handle it on their own executor, so slow work such as network broadcasts
+ * never holds up the game.
+ * <p>
+ * Subscribers are looked up by {@link GameEvent.Type} in copy-on-write arrays, so
+ * dispatching takes no locks and allocates nothing. The time spent in {@link #publish}
+ * is measured, including nested publishes, and each dispatch is recorded as a JFR
+ * {@link DispatchEvent} when a recording has it enabled.
+ */
+public class EventBus {
+    private volatile Consumer<GameEvent>[][] subscribers; // [event type] -> subscribers, replaced on subscribe
+    private volatile List<AsyncSubscriber<?>> asyncSubscribers = List.of();
+    private final LongAdder dispatched = new LongAdder(), dispatchNanos = new LongAdder();
+    private volatile long maxDispatchNanos;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public EventBus() {
+        this.subscribers = new Consumer[GameEvent.Type.values().length][0];
+    }
+
+    /**
+     * Adds a subscriber that handles events on the dispatch thread.
+     *
+     * @param eventClass The event record class to subscribe to
+     * @param handler    The handler to call for each event
+     * @param <E>        The event type
+     */
+    public <E extends GameEvent> void subscribe(Class<E> eventClass, Consumer<? super E> handler) {
+        @SuppressWarnings("unchecked")
+        Consumer<GameEvent> subscriber = event -> handler.accept((E) event);
+        add(GameEvent.Type.of(eventClass), subscriber);
+    }
+
+    /**
+     * Adds a subscriber that handles events on its own executor. Events are queued in a
+     * bounded queue and dropped, and counted, when the queue is full, so a slow subscriber
+     * never blocks the dispatch thread. Events are handled one at a time, in order.
+     *
+     * @param eventClass The event record class to subscribe to
+     * @param handler    The handler to call for each event
+     * @param executor   The executor to handle the events on
+     * @param capacity   The most events to queue before dropping new ones
+     * @param <E>        The event type
+     * @return The subscriber, for its queue statistics
+     */
+    public <E extends GameEvent> AsyncSubscriber<E> subscribeAsync(Class<E> eventClass, Consumer<? super E> handler,
+                                                                   Executor executor, int capacity) {
+        return subscribeAsync(eventClass, handler, executor, capacity, false);
+    }
+
+    /**
+     * Adds a subscriber that handles events on its own executor, as
+     * {@link #subscribeAsync(Class, Consumer, Executor, int)} does, but optionally drops the
+     * oldest queued event instead of the new one when the queue is full. That suits events
+     * that each replace the last, such as state snapshots, where only the newest matters.
+     *
+     * @param eventClass The event record class to subscribe to
+     * @param handler    The handler to call for each event
+     * @param executor   The executor to handle the events on
+     * @param capacity   The most events to queue before dropping one
+     * @param keepLatest Whether a full queue drops its oldest event rather than the new one
+     * @param <E>        The event type
+     * @return The subscriber, for its queue statistics
+     */
+    public <E extends GameEvent> AsyncSubscriber<E> subscribeAsync(Class<E> eventClass, Consumer<? super E> handler,
+                                                                   Executor executor, int capacity,
+                                                                   boolean keepLatest) {
+        AsyncSubscriber<E> async = new AsyncSubscriber<>(eventClass.getSimpleName(), handler, executor, capacity,
+                keepLatest);
+        @SuppressWarnings("unchecked")
+        Consumer<GameEvent> subscriber = event -> async.offer((E) event);
+        synchronized (this) {
+            List<AsyncSubscriber<?>> all = new ArrayList<>(asyncSubscribers);
+            all.add(async);
+            asyncSubscribers = List.copyOf(all);
+        }
+        add(GameEvent.Type.of(eventClass), subscriber);
+        return async;
+    }
+
+    private synchronized void add(GameEvent.Type type, Consumer<GameEvent> subscriber) {
+        Consumer<GameEvent>[][] copy = subscribers.clone();
+        copy[type.ordinal()] = Arrays.copyOf(copy[type.ordinal()], copy[type.ordinal()].length + 1);
+        copy[type.ordinal()][copy[type.ordinal()].length - 1] = subscriber;
+        subscribers = copy;
+    }
+
+    /**
+     * Returns whether anyone subscribed to an event, so publishers can skip building
+     * events nobody will see.
+     *
+     * @param eventClass The event record class
+     * @return True if there is at least one subscriber
+     */
+    public boolean hasSubscribers(Class<? extends GameEvent> eventClass) {
+        return subscribers[GameEvent.Type.of(eventClass).ordinal()].length > 0;
+    }
+
+    /**
+     * Delivers an event to its subscribers. Must be called on the dispatch thread.
+     *
+     * @param event The event to publish
+     */
+    public void publish(GameEvent event) {
+        Consumer<GameEvent>[] handlers = subscribers[event.type().ordinal()];
+        if (handlers.length == 0)
+            return;
+        DispatchEvent dispatch = new DispatchEvent();
+        dispatch.begin();
+        long start = System.nanoTime();
+        for (Consumer<GameEvent> handler : handlers)
+            handler.accept(event);
+        long elapsed = System.nanoTime() - start;
+        if (dispatch.shouldCommit()) {
+            dispatch.eventType = event.type().name();
+            dispatch.subscribers = handlers.length;
+            dispatch.commit();
+        }
+        dispatched.increment();
+        dispatchNanos.add(elapsed);
+        if (elapsed > maxDispatchNanos)
+            maxDispatchNanos = elapsed;
+    }
+
+    /**
+     * Returns the number of events that were delivered to at least one subscriber.
+     *
+     * @return The number of dispatched events
+     */
+    public long getDispatched() {
+        return dispatched.sum();
+    }
+
+    /**
+     * Returns the average time spent dispatching an event, including synchronous handlers
+     * and any events they published.
+     *
+     * @return The mean dispatch time in nanoseconds
+     */
+    public double getMeanDispatchNanos() {
+        long count = dispatched.sum();
+        return count == 0 ? 0 : (double) dispatchNanos.sum() / count;
+    }
+
+    /**
+     * Returns the longest time spent dispatching one event.
+     *
+     * @return The maximum dispatch time in nanoseconds
+     */
+    public long getMaxDispatchNanos() {
+        return maxDispatchNanos;
+    }
+
+    /**
+     * Returns the asynchronous subscribers, for their queue depths and drop counts.
+     *
+     * @return The asynchronous subscribers in the order they subscribed
+     */
+    public List<AsyncSubscriber<?>> getAsyncSubscribers() {
+        return asyncSubscribers;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("EventBus{dispatched=%d, meanNanos=%.0f, maxNanos=%d, async=%s}",
+                getDispatched(), getMeanDispatchNanos(), getMaxDispatchNanos(), asyncSubscribers);
+    }
+}
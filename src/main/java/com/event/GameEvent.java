@@ -0,0 +1,173 @@
+package com.event;
+
+import com.engine.Board;
+import com.state.GameState;
+
+/**
+ * Something that happened in a game, published through an {@link EventBus}.
+ * <p>
+ * Every event is a record carrying typed values instead of boxed property change values.
+ * Events without components, and the move events, are shared constants, so publishing
+ * them allocates nothing.
+ */
+public sealed interface GameEvent {
+
+    /**
+     * Returns the kind of event, used by the bus to find its subscribers.
+     *
+     * @return The event type
+     */
+    Type type();
+
+    /**
+     * The kinds of event, one per record.
+     */
+    enum Type {
+        SCORE_CHANGED(ScoreChanged.class),
+        NEW_GAME(NewGame.class),
+        MOVED(Moved.class),
+        MOVE_FINISHED(MoveFinished.class),
+        GAME_WON(GameWon.class),
+        GAME_CONTINUED(GameContinued.class),
+        GAME_OVER(GameOver.class),
+        STATE_SNAPSHOT(StateSnapshot.class);
+
+        private final Class<? extends GameEvent> eventClass;
+
+        Type(Class<? extends GameEvent> eventClass) {
+            this.eventClass = eventClass;
+        }
+
+        /**
+         * Returns the type of an event record class.
+         *
+         * @param eventClass The record class
+         * @return The matching type
+         */
+        public static Type of(Class<? extends GameEvent> eventClass) {
+            for (Type type : values())
+                if (type.eventClass == eventClass)
+                    return type;
+            throw new IllegalArgumentException("Unknown event class: " + eventClass.getName());
+        }
+    }
+
+    /**
+     * The score changed, or may have changed, after a move or a new game.
+     *
+     * @param score     The current score
+     * @param bestScore The best score so far
+     */
+    record ScoreChanged(int score, int bestScore) implements GameEvent {
+        @Override
+        public Type type() { return Type.SCORE_CHANGED; }
+    }
+
+    /**
+     * A new game was started and its first two tiles were placed.
+     */
+    record NewGame() implements GameEvent {
+        public static final NewGame INSTANCE = new NewGame();
+
+        @Override
+        public Type type() { return Type.NEW_GAME; }
+    }
+
+    /**
+     * The tiles were moved and merged. The owner of the game is expected to make the final
+     * pass of the move and, if the board changed, generate a new tile.
+     *
+     * @param direction The move code (see {@link Board})
+     * @param changed   Whether the move changed the board
+     */
+    record Moved(int direction, boolean changed) implements GameEvent {
+        private static final Moved[] CACHE = new Moved[8];
+
+        static {
+            for (int d = 0; d < 4; d++) {
+                CACHE[d] = new Moved(d, false);
+                CACHE[d + 4] = new Moved(d, true);
+            }
+        }
+
+        /**
+         * Returns the shared event for a move.
+         *
+         * @param direction The move code (see {@link Board})
+         * @param changed   Whether the move changed the board
+         * @return The event
+         */
+        public static Moved of(int direction, boolean changed) {
+            return CACHE[direction + (changed ? 4 : 0)];
+        }
+
+        @Override
+        public Type type() { return Type.MOVED; }
+    }
+
+    /**
+     * The final pass of a move was made.
+     *
+     * @param direction The move code (see {@link Board})
+     */
+    record MoveFinished(int direction) implements GameEvent {
+        private static final MoveFinished[] CACHE = {
+                new MoveFinished(Board.UP), new MoveFinished(Board.RIGHT),
+                new MoveFinished(Board.DOWN), new MoveFinished(Board.LEFT)
+        };
+
+        /**
+         * Returns the shared event for a move.
+         *
+         * @param direction The move code (see {@link Board})
+         * @return The event
+         */
+        public static MoveFinished of(int direction) {
+            return CACHE[direction];
+        }
+
+        @Override
+        public Type type() { return Type.MOVE_FINISHED; }
+    }
+
+    /**
+     * A winning tile is on the board and the player has not chosen to continue.
+     */
+    record GameWon() implements GameEvent {
+        public static final GameWon INSTANCE = new GameWon();
+
+        @Override
+        public Type type() { return Type.GAME_WON; }
+    }
+
+    /**
+     * The player chose to keep playing after winning.
+     */
+    record GameContinued() implements GameEvent {
+        public static final GameContinued INSTANCE = new GameContinued();
+
+        @Override
+        public Type type() { return Type.GAME_CONTINUED; }
+    }
+
+    /**
+     * No move is left.
+     */
+    record GameOver() implements GameEvent {
+        public static final GameOver INSTANCE = new GameOver();
+
+        @Override
+        public Type type() { return Type.GAME_OVER; }
+    }
+
+    /**
+     * A copy of the game state taken on the thread that owns the game, for subscribers
+     * that share it elsewhere (the socket server, for instance).
+     *
+     * @param state The game state
+     */
+    record StateSnapshot(GameState state) implements GameEvent {
+        @Override
+        public Type type() { return Type.STATE_SNAPSHOT; }
+    }
+}
@@ -0,0 +1,63 @@
+package com.ipc;
+
+import com.ai.Agent;
+import com.ai.Expectimax;
+import com.ai.GreedyAgent;
+import com.ai.HeuristicEvaluator;
+import com.ai.OpeningBook;
+import com.ai.RandomAgent;
+import com.engine.Board;
+
+import java.nio.file.Path;
+
+/**
+ * Plays the running game from another process through a {@link SharedMemoryChannel}.
+ * <p>
+ * Start the game with {@code -D_2048.ipcFile=<file>}, then run
+ * {@code IpcAgent <file> [random|greedy|expectimax] [games] [opening book]}. The agent answers
+ * the newest state with a move, and starts a new game when one ends until it has played the
+ * given number of games. Given an {@link OpeningBook}, it plays the book move wherever there
+ * is one.
+ */
+public class IpcAgent {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: IpcAgent <channel file> [random|greedy|expectimax] [games] [opening book]");
+            System.exit(2);
+        }
+        Agent agent = switch (args.length >= 2 ? args[1] : "expectimax") {
+            case "random" -> new RandomAgent();
+            case "greedy" -> new GreedyAgent();
+            case "expectimax" -> new Expectimax(new HeuristicEvaluator(), 2, 16L << 20);
+            default -> throw new IllegalArgumentException("Unknown agent: " + args[1]);
+        };
+        int games = args.length >= 3 ? Integer.parseInt(args[2]) : 1;
+        if (args.length >= 4)
+            agent = OpeningBook.load(Path.of(args[3])).withFallback(agent);
+
+        try (SharedMemoryChannel channel = SharedMemoryChannel.attach(Path.of(args[0]))) {
+            StateFrame state = new StateFrame();
+            long lastFingerprint = 0;
+            for (int played = 0; played < games; ) {
+                channel.awaitState(state, WaitStrategy.PARK, true);
+                // A state the game sent again, such as after a blocked move, is already answered
+                if (state.getFingerprint() == lastFingerprint)
+                    continue;
+                lastFingerprint = state.getFingerprint();
+                if (state.isGameOver() || state.isGameWon()) {
+                    System.out.printf("game %d: score %d, largest tile %d, %d moves%n", ++played, state.getScore(),
+                            Board.toValue(Board.maxExponent(state.getBoard())), state.getMoveCount());
+                    if (played < games)
+                        channel.sendCommand(SharedMemoryChannel.NEW_GAME);
+                    continue;
+                }
+                if (state.getSize() != Board.SIZE)
+                    throw new IllegalStateException("The agents only play 4x4 boards");
+                int move = agent.chooseMove(state.getBoard());
+                if (move >= 0)
+                    channel.sendCommand(move);
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.ipc;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Measures the round trip through a {@link SharedMemoryChannel}: a state out to an agent
+ * thread and a command back, as the game and a co-located bot would exchange them. Both
+ * ends map the same file, exactly as two processes would.
+ * <p>
+ * Usage: {@code SharedMemoryBenchmark [round trips] [spin|park]}, by default 100000 round
+ * trips with busy-spinning readers. On a machine with fewer than two cores use park, as
+ * two spinning threads would take turns on the one core.
+ */
+public class SharedMemoryBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int trips = args.length >= 1 ? Integer.parseInt(args[0]) : 100_000;
+        WaitStrategy wait = args.length >= 2 && args[1].equals("park") ? WaitStrategy.PARK : WaitStrategy.BUSY_SPIN;
+        Path file = Files.createTempFile("2048-ipc", ".bin");
+        try (SharedMemoryChannel game = SharedMemoryChannel.create(file, SharedMemoryChannel.DEFAULT_SLOTS);
+             SharedMemoryChannel agent = SharedMemoryChannel.attach(file)) {
+            Thread echo = new Thread(() -> {
+                StateFrame frame = new StateFrame();
+                try {
+                    for (int i = 0; i < trips; i++) {
+                        agent.awaitState(frame, wait, false);
+                        agent.sendCommand((int) (frame.getBoard() & 3));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "ipc-echo");
+            echo.start();
+
+            long[] nanos = new long[trips];
+            for (int i = 0; i < trips; i++) {
+                long start = System.nanoTime();
+                game.publishState(4, i, i, i, i, false, false, i);
+                for (int attempt = 0; game.pollCommand() < 0; attempt++)
+                    wait.idle(attempt);
+                nanos[i] = System.nanoTime() - start;
+            }
+            echo.join();
+
+            // The first trips include class loading and compilation
+            long[] measured = Arrays.copyOfRange(nanos, trips / 10, trips);
+            Arrays.sort(measured);
+            System.out.printf("%d round trips (%s): p50=%.2f us p99=%.2f us p99.9=%.2f us max=%.2f us%n",
+                    measured.length, wait, percentile(measured, 0.50) / 1e3, percentile(measured, 0.99) / 1e3,
+                    percentile(measured, 0.999) / 1e3, measured[measured.length - 1] / 1e3);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        return sorted[Math.min(sorted.length - 1, (int) (quantile * sorted.length))];
+    }
+}
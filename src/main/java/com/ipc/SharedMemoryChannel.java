@@ -0,0 +1,230 @@
+package com.ipc;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A two-way channel between the game and an agent on the same host, through a
+ * memory-mapped file.
+ * <p>
+ * The file holds two {@link SpscRing}s: states out, written by the game and read by the
+ * agent, and commands in, written by the agent and read by the game. Once both processes
+ * have mapped the file, a state or a move reaches the other side in about a microsecond,
+ * with no system call, lock or allocation on either side. A process uses only its own half
+ * of the channel: the game calls {@link #publishState} and {@link #pollCommand}, the agent
+ * {@link #pollState}, {@link #awaitState} and {@link #sendCommand}, each from one thread.
+ * <p>
+ * The game never waits for the agent: when the state ring is full the new state is dropped
+ * and counted. Every state the game offers takes the next sequence number, whether it is
+ * sent or dropped, so the agent sees a gap in the sequence numbers for each dropped state.
+ * An agent that only wants the newest state can skip the ones it has not read yet, which
+ * leaves gaps too.
+ */
+public final class SharedMemoryChannel implements Closeable {
+    public static final int DEFAULT_SLOTS = 1024; // States or commands each ring can hold
+
+    // Commands an agent can send: the move codes of com.engine.Board, and a new game
+    public static final int NEW_GAME = 4;
+
+    private static final int MAGIC = 0x43504932; // "2IPC"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 64;
+    private static final int COMMAND_BYTES = 8;
+
+    private final FileChannel file;
+    private final SpscRing states, commands;
+    private long stateSequence; // States offered so far, sent or dropped; only used by the game
+    private final LongAdder droppedStates = new LongAdder(); // Written by the game, read by the metrics thread
+
+    private SharedMemoryChannel(FileChannel file, MappedByteBuffer mapping, int slots) {
+        this.file = file;
+        long stateBytes = SpscRing.bytes(slots, StateFrame.BYTES);
+        this.states = new SpscRing(mapping.slice(HEADER_BYTES, (int) stateBytes).order(ByteOrder.LITTLE_ENDIAN),
+                slots, StateFrame.BYTES);
+        this.commands = new SpscRing(mapping.slice(HEADER_BYTES + (int) stateBytes,
+                (int) SpscRing.bytes(slots, COMMAND_BYTES)).order(ByteOrder.LITTLE_ENDIAN), slots, COMMAND_BYTES);
+    }
+
+    /**
+     * Creates the channel file for the game, emptying any earlier one.
+     *
+     * @param path  The file to create
+     * @param slots The number of states, and of commands, each ring holds; a power of two
+     * @return The game's end of the channel
+     */
+    public static SharedMemoryChannel create(Path path, int slots) throws IOException {
+        if (Integer.bitCount(slots) != 1)
+            throw new IllegalArgumentException("Slots must be a power of two: " + slots);
+        FileChannel file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            file.truncate(0);
+            long bytes = HEADER_BYTES + SpscRing.bytes(slots, StateFrame.BYTES) + SpscRing.bytes(slots, COMMAND_BYTES);
+            // Mapping past the end grows the file with zeros, so both rings start out empty
+            MappedByteBuffer mapping = file.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            mapping.order(ByteOrder.LITTLE_ENDIAN).putInt(0, MAGIC).putInt(4, VERSION).putInt(8, slots);
+            return new SharedMemoryChannel(file, mapping, slots);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the channel file the game created, for an agent.
+     *
+     * @param path The file the game created
+     * @return The agent's end of the channel
+     * @throws IOException If the file cannot be opened or was not made by {@link #create}
+     */
+    public static SharedMemoryChannel attach(Path path) throws IOException {
+        FileChannel file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            file.read(header, 0);
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC)
+                throw new IOException("Not a channel file: " + path);
+            int version = header.getInt(), slots = header.getInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported channel version " + version + ": " + path);
+            long bytes = HEADER_BYTES + SpscRing.bytes(slots, StateFrame.BYTES) + SpscRing.bytes(slots, COMMAND_BYTES);
+            if (Integer.bitCount(slots) != 1 || file.size() < bytes)
+                throw new IOException("Truncated or corrupt channel file: " + path);
+            return new SharedMemoryChannel(file, file.map(FileChannel.MapMode.READ_WRITE, 0, bytes), slots);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Sends a state to the agent, for the game. Never blocks.
+     *
+     * @param size        The width and height of the board
+     * @param board       The packed board
+     * @param score       The current score
+     * @param bestScore   The best score
+     * @param moveCount   The number of moves made
+     * @param gameWon     Whether the game has been won
+     * @param gameOver    Whether the game is over
+     * @param fingerprint The state's fingerprint (see {@link com._2048.GameEngine#getFingerprint()})
+     * @return False if the agent has fallen a whole ring behind and the state was dropped
+     */
+    public boolean publishState(int size, long board, int score, int bestScore, int moveCount, boolean gameWon,
+                                boolean gameOver, long fingerprint) {
+        long sequence = stateSequence++;
+        int slot = states.claim();
+        if (slot < 0) {
+            droppedStates.increment();
+            return false;
+        }
+        ByteBuffer buffer = states.buffer();
+        buffer.putLong(slot + StateFrame.SEQUENCE, sequence)
+                .putLong(slot + StateFrame.BOARD, board)
+                .putLong(slot + StateFrame.FINGERPRINT, fingerprint)
+                .putInt(slot + StateFrame.SCORE, score)
+                .putInt(slot + StateFrame.BEST_SCORE, bestScore)
+                .putInt(slot + StateFrame.MOVE_COUNT, moveCount)
+                .putInt(slot + StateFrame.SIZE, size)
+                .putInt(slot + StateFrame.FLAGS, (gameWon ? StateFrame.WON : 0) | (gameOver ? StateFrame.OVER : 0));
+        states.publish();
+        return true;
+    }
+
+    /**
+     * Reads the next command from the agent, for the game.
+     *
+     * @return A move code (see {@link com.engine.Board}) or {@link #NEW_GAME}, or -1 if
+     *         there is none
+     */
+    public int pollCommand() {
+        int slot = commands.peek();
+        if (slot < 0)
+            return -1;
+        int command = commands.buffer().getInt(slot);
+        commands.release();
+        return command;
+    }
+
+    /**
+     * Reads the next state from the game, for the agent.
+     *
+     * @param frame The frame to fill in
+     * @return False if there is no new state
+     */
+    public boolean pollState(StateFrame frame) {
+        int slot = states.peek();
+        if (slot < 0)
+            return false;
+        ByteBuffer buffer = states.buffer();
+        frame.sequence = buffer.getLong(slot + StateFrame.SEQUENCE);
+        frame.board = buffer.getLong(slot + StateFrame.BOARD);
+        frame.fingerprint = buffer.getLong(slot + StateFrame.FINGERPRINT);
+        frame.score = buffer.getInt(slot + StateFrame.SCORE);
+        frame.bestScore = buffer.getInt(slot + StateFrame.BEST_SCORE);
+        frame.moveCount = buffer.getInt(slot + StateFrame.MOVE_COUNT);
+        frame.size = buffer.getInt(slot + StateFrame.SIZE);
+        int flags = buffer.getInt(slot + StateFrame.FLAGS);
+        frame.gameWon = (flags & StateFrame.WON) != 0;
+        frame.gameOver = (flags & StateFrame.OVER) != 0;
+        states.release();
+        return true;
+    }
+
+    /**
+     * Waits for the next state from the game, for the agent.
+     *
+     * @param frame  The frame to fill in
+     * @param wait   How to wait while there is none
+     * @param latest Whether to skip straight to the newest state when several are waiting
+     */
+    public void awaitState(StateFrame frame, WaitStrategy wait, boolean latest) throws InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            if (latest)
+                states.skipToLatest();
+            if (pollState(frame))
+                return;
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            wait.idle(attempt);
+        }
+    }
+
+    /**
+     * Sends a command to the game, for the agent.
+     *
+     * @param command A move code (see {@link com.engine.Board}) or {@link #NEW_GAME}
+     * @return False if the game has a whole ring of commands it has not read yet
+     */
+    public boolean sendCommand(int command) {
+        int slot = commands.claim();
+        if (slot < 0)
+            return false;
+        commands.buffer().putInt(slot, command);
+        commands.publish();
+        return true;
+    }
+
+    /**
+     * Returns the states the game dropped because the agent fell a whole ring behind.
+     *
+     * @return The number of dropped states
+     */
+    public long getDroppedStates() {
+        return droppedStates.sum();
+    }
+
+    @Override
+    public void close() throws IOException {
+        // The mappings stay valid until they are garbage collected, as the JDK offers no unmap
+        file.close();
+    }
+}
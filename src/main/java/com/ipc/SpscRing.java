@@ -0,0 +1,117 @@
+package com.ipc;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A single-producer, single-consumer ring of fixed-size slots in shared memory.
+ * <p>
+ * The ring starts with two sequence numbers on cache lines of their own: the number of
+ * slots ever written, and the number ever read. The producer fills the slot for its next
+ * sequence with plain stores and then publishes it with a release store of the write
+ * sequence; the consumer reads it with an acquire load, so it sees the whole slot, and
+ * hands the slot back with a release store of the read sequence. Each side keeps its own
+ * copy of the other side's sequence and only reads the shared one when the ring looks full
+ * or empty, so neither the producer nor the consumer makes a system call or takes a lock.
+ * <p>
+ * The producer and consumer are usually in different processes, each with its own
+ * instance over the same memory. Each end must only be used by one thread at a time.
+ */
+final class SpscRing {
+    static final int HEADER_BYTES = 128; // The write sequence and the read sequence, 64 bytes apart
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final int WRITE_OFFSET = 0, READ_OFFSET = 64;
+
+    private final ByteBuffer buffer;
+    private final int slots, slotBytes;
+    private long writeSequence, readSequence; // This end's own sequence
+    private long cachedRead, cachedWrite; // The last value seen of the other end's sequence
+
+    /**
+     * @param buffer    The shared memory of the ring, starting at its header
+     * @param slots     The number of slots, a power of two
+     * @param slotBytes The size of a slot, a multiple of 8
+     */
+    SpscRing(ByteBuffer buffer, int slots, int slotBytes) {
+        if (Integer.bitCount(slots) != 1 || slotBytes % Long.BYTES != 0)
+            throw new IllegalArgumentException("Slots must be a power of two and slot size a multiple of 8");
+        this.buffer = buffer;
+        this.slots = slots;
+        this.slotBytes = slotBytes;
+        // Picks up where an earlier producer or consumer left off
+        this.writeSequence = this.cachedWrite = (long) LONGS.getAcquire(buffer, WRITE_OFFSET);
+        this.readSequence = this.cachedRead = (long) LONGS.getAcquire(buffer, READ_OFFSET);
+    }
+
+    static long bytes(int slots, int slotBytes) {
+        return HEADER_BYTES + (long) slots * slotBytes;
+    }
+
+    ByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * Returns the offset of the next slot to write, for the producer.
+     *
+     * @return The offset into {@link #buffer()}, or -1 if the ring is full
+     */
+    int claim() {
+        if (writeSequence - cachedRead >= slots) {
+            cachedRead = (long) LONGS.getAcquire(buffer, READ_OFFSET);
+            if (writeSequence - cachedRead >= slots)
+                return -1;
+        }
+        return offset(writeSequence);
+    }
+
+    /**
+     * Makes the claimed slot visible to the consumer.
+     */
+    void publish() {
+        LONGS.setRelease(buffer, WRITE_OFFSET, ++writeSequence);
+    }
+
+    /**
+     * Returns the offset of the next slot to read, for the consumer.
+     *
+     * @return The offset into {@link #buffer()}, or -1 if the ring is empty
+     */
+    int peek() {
+        if (readSequence >= cachedWrite) {
+            cachedWrite = (long) LONGS.getAcquire(buffer, WRITE_OFFSET);
+            if (readSequence >= cachedWrite)
+                return -1;
+        }
+        return offset(readSequence);
+    }
+
+    /**
+     * Hands the slot returned by {@link #peek()} back to the producer.
+     */
+    void release() {
+        LONGS.setRelease(buffer, READ_OFFSET, ++readSequence);
+    }
+
+    /**
+     * Skips every slot written so far, for a consumer that only cares about the newest.
+     *
+     * @return The number of slots skipped
+     */
+    long skipToLatest() {
+        cachedWrite = (long) LONGS.getAcquire(buffer, WRITE_OFFSET);
+        long skipped = Math.max(0, cachedWrite - 1 - readSequence);
+        if (skipped > 0) {
+            readSequence += skipped;
+            LONGS.setRelease(buffer, READ_OFFSET, readSequence);
+        }
+        return skipped;
+    }
+
+    private int offset(long sequence) {
+        return HEADER_BYTES + (int) (sequence & (slots - 1)) * slotBytes;
+    }
+}
@@ -0,0 +1,44 @@
+package com.ipc;
+
+import com.engine.Board;
+
+/**
+ * A game state as carried by a {@link SharedMemoryChannel}: the board packed into a long
+ * (see {@link com.engine.PackedMoves} for the layout of boards smaller than 4x4), the
+ * scores and the flags of a {@link com.state.GameState}. A frame is meant to be reused,
+ * so reading states allocates nothing.
+ */
+public final class StateFrame {
+    static final int BYTES = 64; // One cache line per frame
+    static final int BOARD = 0, FINGERPRINT = 8, SCORE = 16, BEST_SCORE = 20, MOVE_COUNT = 24, SIZE = 28, FLAGS = 32,
+            SEQUENCE = 40;
+    static final int WON = 1, OVER = 2;
+
+    long sequence, board, fingerprint;
+    int size, score, bestScore, moveCount;
+    boolean gameWon, gameOver;
+
+    /**
+     * Returns the position of this state among every state the game offered, counting from
+     * 0. The game numbers the states it drops too, so a gap from the previous frame read
+     * means states were dropped by the game or skipped by the agent.
+     *
+     * @return The sequence number
+     */
+    public long getSequence() { return sequence; }
+    public long getBoard() { return board; }
+    public long getFingerprint() { return fingerprint; }
+    public int getSize() { return size; }
+    public int getScore() { return score; }
+    public int getBestScore() { return bestScore; }
+    public int getMoveCount() { return moveCount; }
+    public boolean isGameWon() { return gameWon; }
+    public boolean isGameOver() { return gameOver; }
+
+    @Override
+    public String toString() {
+        return "StateFrame{ sequence=" + sequence + ", score=" + score + ", bestScore=" + bestScore
+                + ", moveCount=" + moveCount + ", gameWon=" + gameWon + ", gameOver=" + gameOver + " }\n"
+                + (size == Board.SIZE ? Board.toString(board) : Long.toHexString(board));
+    }
+}
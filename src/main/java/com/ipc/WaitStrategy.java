@@ -0,0 +1,45 @@
+package com.ipc;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * How a reader waits for the other process when its ring is empty.
+ */
+public enum WaitStrategy {
+    /**
+     * Spins on the CPU without ever giving it up. The lowest latency, at the cost of a
+     * whole core for as long as the reader waits.
+     */
+    BUSY_SPIN {
+        @Override
+        public void idle(int attempt) {
+            Thread.onSpinWait();
+        }
+    },
+
+    /**
+     * Spins for a short while, then parks for a few tens of microseconds between checks.
+     * Costs next to no CPU when the other side is idle, and adds at most one park to the
+     * latency when it is not.
+     */
+    PARK {
+        @Override
+        public void idle(int attempt) {
+            if (attempt < SPINS)
+                Thread.onSpinWait();
+            else
+                LockSupport.parkNanos(PARK_NANOS);
+        }
+    };
+
+    private static final int SPINS = 1000; // Checks before the first park
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /**
+     * Waits a little before the next check.
+     *
+     * @param attempt The number of checks that have found nothing so far
+     */
+    public abstract void idle(int attempt);
+}
@@ -0,0 +1,29 @@
+package com.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A tile animation started by {@code UI.updateTiles}, from the call until the tiles are
+ * redrawn in their final state.
+ */
+@Name("com._2048.Animation")
+@Label("Tile Animation")
+@Category({"2048", "UI"})
+@Description("Tiles animated to their positions after a move")
+@StackTrace(false)
+public final class AnimationEvent extends Event {
+    @Label("Direction")
+    @Description("The direction of the move, or null when the board is only redrawn")
+    public String direction;
+
+    @Label("Tiles Moved")
+    public int tilesMoved;
+
+    @Label("Quick")
+    public boolean quick;
+}
@@ -0,0 +1,36 @@
+package com.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A state handed to the spectators by {@link com.socket.GameStateServer#broadcastGameState}:
+ * encoded once and queued for, or written to, every client.
+ */
+@Name("com._2048.Broadcast")
+@Label("State Broadcast")
+@Category({"2048", "Network"})
+@Description("A game state sent to the spectators")
+@StackTrace(false)
+public final class BroadcastEvent extends Event {
+    @Label("Clients")
+    @Description("The clients the frame was queued for or written to")
+    public int clients;
+
+    @Label("Bytes")
+    @DataAmount
+    @Description("The bytes queued for or written to the clients: the encoded frame, newline included, once per client")
+    public long bytes;
+
+    @Label("Skipped")
+    @Description("Whether the state was the same as the one before and was not sent")
+    public boolean skipped;
+
+    @Label("Board Fingerprint")
+    public long fingerprint;
+}
@@ -0,0 +1,25 @@
+package com.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The delivery of one game event by {@link com.event.EventBus#publish}, including its
+ * synchronous handlers and anything they publish in turn.
+ */
+@Name("com._2048.Dispatch")
+@Label("Event Dispatch")
+@Category({"2048", "Events"})
+@Description("A game event delivered to its subscribers")
+@StackTrace(false)
+public final class DispatchEvent extends Event {
+    @Label("Event Type")
+    public String eventType;
+
+    @Label("Subscribers")
+    public int subscribers;
+}
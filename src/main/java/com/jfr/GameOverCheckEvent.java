@@ -0,0 +1,25 @@
+package com.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A check of {@link com._2048.GameEngine#checkForGameOver} for a move left to make.
+ */
+@Name("com._2048.GameOverCheck")
+@Label("Game Over Check")
+@Category({"2048", "Game"})
+@Description("A search of the board for a move left to make")
+@StackTrace(false)
+public final class GameOverCheckEvent extends Event {
+    @Label("Full Board")
+    @Description("Whether the board was full, so every tile had to be looked at")
+    public boolean fullBoard;
+
+    @Label("Game Over")
+    public boolean gameOver;
+}
@@ -0,0 +1,38 @@
+package com.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One pass of a move over the board in {@link com._2048.GameEngine}: sliding, merging and
+ * updating the tracked state, up to the point where the move is announced.
+ */
+@Name("com._2048.Move")
+@Label("Move")
+@Category({"2048", "Game"})
+@Description("Tiles slid and merged by a move")
+@StackTrace(false)
+public final class MoveEvent extends Event {
+    @Label("Direction")
+    public String direction;
+
+    @Label("Pass")
+    @Description("0 for the move itself, 1 for the final pass made before the animation")
+    public int pass;
+
+    @Label("Changed")
+    public boolean changed;
+
+    @Label("Score Delta")
+    public int scoreDelta;
+
+    @Label("Merges")
+    public int merges;
+
+    @Label("Board Fingerprint")
+    public long fingerprint;
+}
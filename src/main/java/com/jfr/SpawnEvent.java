@@ -0,0 +1,35 @@
+package com.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A new tile placed by {@link com._2048.GameEngine#generateTile}.
+ */
+@Name("com._2048.Spawn")
+@Label("Tile Spawn")
+@Category({"2048", "Game"})
+@Description("A new tile added after a move")
+@StackTrace(false)
+public final class SpawnEvent extends Event {
+    @Label("Value")
+    @Description("The tile added, or 0 if there was no room or the game had stopped")
+    public int value;
+
+    @Label("Row")
+    public int row;
+
+    @Label("Column")
+    public int column;
+
+    @Label("Empty Cells")
+    @Description("Empty cells left after the spawn")
+    public int emptyCells;
+
+    @Label("Board Fingerprint")
+    public long fingerprint;
+}
@@ -0,0 +1,26 @@
+package com.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A count that only goes up, such as moves made or frames sent. Incrementing is a
+ * {@link LongAdder} update, so the game thread never waits for a scrape or for other
+ * threads counting the same thing.
+ */
+public final class Counter {
+    private final LongAdder count = new LongAdder();
+
+    Counter() {}
+
+    public void increment() {
+        count.increment();
+    }
+
+    public void add(long amount) {
+        count.add(amount);
+    }
+
+    public long get() {
+        return count.sum();
+    }
+}
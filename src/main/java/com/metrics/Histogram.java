@@ -0,0 +1,83 @@
+package com.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A distribution of durations in fixed buckets, such as the time taken by each move.
+ * <p>
+ * Each bucket, the count and the sum are {@link LongAdder}s, so recording a duration is a
+ * short scan of the bucket bounds and two uncontended additions. The buckets are exported
+ * in seconds and cumulative, as Prometheus expects.
+ */
+public final class Histogram {
+    // From 10 microseconds to 1 second; the UI thread has about 16ms per frame
+    static final double[] LATENCY_BUCKETS = {1e-5, 2.5e-5, 5e-5, 1e-4, 2.5e-4, 5e-4, 1e-3, 2.5e-3, 5e-3, 1e-2,
+            2.5e-2, 5e-2, 0.1, 0.25, 1};
+
+    private final double[] bounds; // Upper bounds in seconds
+    private final long[] boundNanos;
+    private final LongAdder[] buckets; // One per bound, and one past the last; not cumulative
+    private final LongAdder count = new LongAdder(), sumNanos = new LongAdder();
+
+    /**
+     * @param bounds The upper bounds of the buckets in seconds, in increasing order
+     */
+    Histogram(double[] bounds) {
+        this.bounds = bounds.clone();
+        this.boundNanos = new long[bounds.length];
+        this.buckets = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < bounds.length; i++) {
+            if (i > 0 && bounds[i] <= bounds[i - 1])
+                throw new IllegalArgumentException("Bucket bounds must increase: " + bounds[i]);
+            boundNanos[i] = Math.round(bounds[i] * 1e9);
+        }
+        for (int i = 0; i < buckets.length; i++)
+            buckets[i] = new LongAdder();
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos The duration in nanoseconds
+     */
+    public void record(long nanos) {
+        int i = 0;
+        while (i < boundNanos.length && nanos > boundNanos[i])
+            i++;
+        buckets[i].increment();
+        count.increment();
+        sumNanos.add(nanos);
+    }
+
+    /**
+     * Records the time since a start taken from {@link System#nanoTime()}.
+     *
+     * @param startNanos The start time
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    double[] bounds() {
+        return bounds;
+    }
+
+    /**
+     * Returns the number of durations at or under each bound, the last entry being all of them.
+     */
+    long[] cumulativeCounts() {
+        long[] counts = new long[buckets.length];
+        long total = 0;
+        for (int i = 0; i < buckets.length; i++)
+            counts[i] = total += buckets[i].sum();
+        return counts;
+    }
+
+    double sumSeconds() {
+        return sumNanos.sum() / 1e9;
+    }
+}
@@ -0,0 +1,45 @@
+package com.metrics;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Registers the JVM statistics that show how hard the game makes the garbage collector
+ * work: the bytes allocated by every thread and by the game thread alone, the heap in use,
+ * and the collections and time spent collecting per collector.
+ */
+public final class JvmMetrics {
+    private JvmMetrics() {}
+
+    /**
+     * @param registry   The registry to add the metrics to
+     * @param gameThread The thread that plays the game, or null to leave out its allocations
+     */
+    public static void register(MetricsRegistry registry, Thread gameThread) {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        registry.gauge("jvm_heap_used_bytes", "Heap memory in use", "",
+                () -> memory.getHeapMemoryUsage().getUsed());
+
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            String labels = "collector=\"" + collector.getName() + "\"";
+            registry.counter("jvm_gc_collections_total", "Garbage collections", labels, collector::getCollectionCount);
+            registry.counter("jvm_gc_collection_milliseconds_total", "Time spent in garbage collection", labels,
+                    collector::getCollectionTime);
+        }
+
+        // Allocation counts need HotSpot's extension of the thread bean, and may be switched off
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean hotspot) || !hotspot.isThreadAllocatedMemorySupported())
+            return;
+        hotspot.setThreadAllocatedMemoryEnabled(true);
+        registry.counter("jvm_allocated_bytes_total", "Bytes allocated by every thread", "",
+                hotspot::getTotalThreadAllocatedBytes);
+        if (gameThread != null) {
+            long id = gameThread.threadId();
+            registry.counter("game_thread_allocated_bytes_total", "Bytes allocated by the game thread", "",
+                    () -> Math.max(0, hotspot.getThreadAllocatedBytes(id)));
+        }
+    }
+}
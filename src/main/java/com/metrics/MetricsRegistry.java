@@ -0,0 +1,186 @@
+package com.metrics;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * The metrics of the application, written out in the Prometheus text format by
+ * {@link MetricsServer}.
+ * <p>
+ * A metric is either owned by the registry ({@link Counter}, {@link Histogram}) and updated
+ * by the code being measured, or read on each scrape from a supplier, which suits values
+ * that are already counted elsewhere, such as queue depths and the JVM's own statistics.
+ * Metrics with the same name and different labels form one family. Registering takes a
+ * lock; updating and scraping do not, as every value is a {@link java.util.concurrent.atomic.LongAdder},
+ * a volatile or a read of a concurrent collection.
+ */
+public final class MetricsRegistry {
+    private final Map<String, Family> families = new LinkedHashMap<>(); // Guarded by this
+    private volatile List<Family> snapshot = List.of(); // What a scrape walks, replaced on registration
+
+    /**
+     * Registers a counter the caller increments.
+     *
+     * @param name The metric name
+     * @param help A one-line description
+     * @return The counter
+     */
+    public Counter counter(String name, String help) {
+        Counter counter = new Counter();
+        add(name, help, "counter", "", out -> sample(out, name, "", counter.get()));
+        return counter;
+    }
+
+    /**
+     * Registers a counter that is read from a supplier on each scrape.
+     *
+     * @param name   The metric name
+     * @param help   A one-line description
+     * @param labels The labels, e.g. {@code server="tcp"}, or an empty string
+     * @param value  Returns the count, which must never go down
+     */
+    public void counter(String name, String help, String labels, LongSupplier value) {
+        add(name, help, "counter", labels, out -> sample(out, name, labels, value.getAsLong()));
+    }
+
+    /**
+     * Registers a gauge that is read from a supplier on each scrape.
+     *
+     * @param name   The metric name
+     * @param help   A one-line description
+     * @param labels The labels, e.g. {@code server="tcp"}, or an empty string
+     * @param value  Returns the current value
+     */
+    public void gauge(String name, String help, String labels, DoubleSupplier value) {
+        add(name, help, "gauge", labels, out -> sample(out, name, labels, value.getAsDouble()));
+    }
+
+    /**
+     * Registers a histogram of durations the caller records.
+     *
+     * @param name   The metric name, which should end in {@code _seconds}
+     * @param help   A one-line description
+     * @param bounds The upper bounds of the buckets in seconds, or null for latencies from
+     *               10 microseconds to a second
+     * @return The histogram
+     */
+    public Histogram histogram(String name, String help, double... bounds) {
+        Histogram histogram = new Histogram(bounds == null || bounds.length == 0 ? Histogram.LATENCY_BUCKETS : bounds);
+        add(name, help, "histogram", "", out -> {
+            double[] upper = histogram.bounds();
+            long[] counts = histogram.cumulativeCounts();
+            for (int i = 0; i < upper.length; i++)
+                sample(out, name + "_bucket", "le=\"" + format(upper[i]) + "\"", counts[i]);
+            sample(out, name + "_bucket", "le=\"+Inf\"", counts[upper.length]);
+            sample(out, name + "_sum", "", histogram.sumSeconds());
+            sample(out, name + "_count", "", counts[upper.length]);
+        });
+        return histogram;
+    }
+
+    private synchronized void add(String name, String help, String type, String labels, Sample sample) {
+        Family family = families.computeIfAbsent(name, n -> new Family(n, help, type));
+        if (!family.type.equals(type))
+            throw new IllegalArgumentException(name + " is already registered as a " + family.type);
+        for (String existing : family.labels) {
+            if (existing.equals(labels))
+                throw new IllegalArgumentException(name + "{" + labels + "} is already registered");
+        }
+        family.labels.add(labels);
+        family.samples.add(sample);
+        List<Family> copy = new ArrayList<>();
+        for (Family f : families.values())
+            copy.add(f.copy());
+        snapshot = List.copyOf(copy);
+    }
+
+    /**
+     * Writes every metric in the Prometheus text exposition format, version 0.0.4.
+     *
+     * @param out Where to append the metrics
+     */
+    public void scrape(StringBuilder out) {
+        for (Family family : snapshot) {
+            out.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+            for (Sample sample : family.samples) {
+                try {
+                    sample.write(out);
+                } catch (RuntimeException e) {
+                    // A supplier failing leaves out its sample, not the whole scrape
+                    System.err.println("Error reading metric " + family.name + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns every metric in the Prometheus text exposition format.
+     *
+     * @return The scraped metrics
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        scrape(out);
+        return out.toString();
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, long value) {
+        out.append(name);
+        if (!labels.isEmpty())
+            out.append('{').append(labels).append('}');
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (!labels.isEmpty())
+            out.append('{').append(labels).append('}');
+        out.append(' ').append(format(value)).append('\n');
+    }
+
+    private static String format(double value) {
+        if (Double.isNaN(value))
+            return "NaN";
+        if (Double.isInfinite(value))
+            return value > 0 ? "+Inf" : "-Inf";
+        if (value == Math.rint(value) && Math.abs(value) < 1e15)
+            return Long.toString((long) value);
+        return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString(); // 0.00001 rather than 1.0E-5
+    }
+
+    /**
+     * Writes the lines of one metric.
+     */
+    @FunctionalInterface
+    private interface Sample {
+        void write(StringBuilder out);
+    }
+
+    /**
+     * The metrics sharing a name.
+     */
+    private static final class Family {
+        final String name, help, type;
+        final List<String> labels = new ArrayList<>();
+        final List<Sample> samples = new ArrayList<>();
+
+        Family(String name, String help, String type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+
+        Family copy() {
+            Family copy = new Family(name, help, type);
+            copy.labels.addAll(labels);
+            copy.samples.addAll(samples);
+            return copy;
+        }
+    }
+}
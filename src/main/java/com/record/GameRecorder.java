@@ -0,0 +1,219 @@
+package com.record;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+
+/**
+ * Streams (board, move, reward, next board) transitions into compressed columnar files.
+ * <p>
+ * Calls to {@link #record} only copy four primitives into the current block, so they are
+ * cheap enough to make from the JavaFX thread. Full blocks are compressed and written by a
+ * single background thread. Once a file reaches the size limit a new one is started, and the
+ * oldest files are deleted so that no more than the configured number are kept.
+ */
+public class GameRecorder implements AutoCloseable {
+    private final Path directory;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "game-recorder");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Deque<Path> files = new ArrayDeque<>(); // Files on disk, oldest first
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+    // The block currently being filled (only touched by the recording thread)
+    private long[] boards, nextBoards;
+    private byte[] moves;
+    private int[] rewards;
+    private int rows;
+
+    // The file currently being written (only touched by the writer thread)
+    private FileChannel channel;
+    private long fileIndex;
+    private ByteBuffer scratch = ByteBuffer.allocate(64 * 1024);
+
+    /**
+     * Creates a recorder that writes into the given directory.
+     *
+     * @param directory    The directory to write transition files into
+     * @param maxFileBytes The size at which a file is closed and a new one started
+     * @param maxFiles     The number of files to keep before the oldest are deleted
+     * @throws IOException If the directory cannot be created or listed
+     */
+    public GameRecorder(Path directory, long maxFileBytes, int maxFiles) throws IOException {
+        if (maxFileBytes <= 0 || maxFiles <= 0)
+            throw new IllegalArgumentException("File size and count limits must be positive");
+        this.directory = directory;
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = maxFiles;
+        Files.createDirectories(directory);
+        for (Path file : listRecordFiles(directory)) {
+            this.files.addLast(file);
+            this.fileIndex = Math.max(this.fileIndex, indexOf(file) + 1);
+        }
+        newBlock();
+    }
+
+    /**
+     * Records a single transition. Must always be called from the same thread.
+     *
+     * @param board     The packed board before the move
+     * @param move      The move code (see {@link com.engine.Board})
+     * @param reward    The score gained by the move
+     * @param nextBoard The packed board after the move and the new tile
+     */
+    public void record(long board, int move, int reward, long nextBoard) {
+        boards[rows] = board;
+        moves[rows] = (byte) move;
+        rewards[rows] = reward;
+        nextBoards[rows] = nextBoard;
+        if (++rows == RecordFormat.BLOCK_ROWS)
+            flush();
+    }
+
+    /**
+     * Hands the rows recorded so far to the writer thread, even if the block is not full.
+     */
+    public void flush() {
+        if (rows == 0)
+            return;
+        long[] b = boards, nb = nextBoards;
+        byte[] m = moves;
+        int[] r = rewards;
+        int n = rows;
+        writer.execute(() -> writeBlock(b, m, r, nb, n));
+        newBlock();
+    }
+
+    /**
+     * Flushes any remaining rows and waits for them to reach the disk.
+     */
+    @Override
+    public void close() {
+        flush();
+        writer.execute(() -> {
+            closeFile();
+            // Only the writer thread uses the compressor, so it is freed there, after the last block
+            deflater.end();
+        });
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS))
+                System.err.println("Recorder did not finish writing in time");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Lists the transition files in a directory, oldest first.
+     *
+     * @param directory The directory to list
+     * @return The transition files sorted by rotation index
+     * @throws IOException If the directory cannot be listed
+     */
+    public static List<Path> listRecordFiles(Path directory) throws IOException {
+        try (Stream<Path> stream = Files.list(directory)) {
+            return stream.filter(p -> RecordFormat.isRecordFile(p.getFileName().toString()))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private void newBlock() {
+        this.boards = new long[RecordFormat.BLOCK_ROWS];
+        this.moves = new byte[RecordFormat.BLOCK_ROWS];
+        this.rewards = new int[RecordFormat.BLOCK_ROWS];
+        this.nextBoards = new long[RecordFormat.BLOCK_ROWS];
+        this.rows = 0;
+    }
+
+    private void writeBlock(long[] boards, byte[] moves, int[] rewards, long[] nextBoards, int n) {
+        try {
+            if (channel == null)
+                openFile();
+            ByteBuffer raw = ByteBuffer.allocate(n * Long.BYTES);
+            ByteBuffer block = ByteBuffer.allocate(RecordFormat.BLOCK_HEADER_BYTES);
+            block.putInt(RecordFormat.BLOCK_MAGIC).putInt(n).flip();
+            channel.write(block);
+
+            raw.asLongBuffer().put(boards, 0, n);
+            writeColumn(raw.array(), n * Long.BYTES);
+            writeColumn(moves, n);
+            raw.clear();
+            raw.asIntBuffer().put(rewards, 0, n);
+            writeColumn(raw.array(), n * Integer.BYTES);
+            raw.clear();
+            raw.asLongBuffer().put(nextBoards, 0, n);
+            writeColumn(raw.array(), n * Long.BYTES);
+
+            if (channel.size() >= maxFileBytes)
+                closeFile();
+        } catch (IOException e) {
+            System.err.println("Error writing transitions: " + e.getMessage());
+        }
+    }
+
+    private void writeColumn(byte[] column, int length) throws IOException {
+        deflater.reset();
+        deflater.setInput(column, 0, length);
+        deflater.finish();
+        // Worst case deflate output is slightly larger than the input
+        int bound = length + (length >> 4) + 64 + Integer.BYTES;
+        if (scratch.capacity() < bound)
+            scratch = ByteBuffer.allocate(bound);
+        scratch.clear();
+        scratch.position(Integer.BYTES);
+        while (!deflater.finished())
+            deflater.deflate(scratch);
+        scratch.putInt(0, scratch.position() - Integer.BYTES);
+        scratch.flip();
+        channel.write(scratch);
+    }
+
+    private void openFile() throws IOException {
+        Path file = directory.resolve(RecordFormat.fileName(fileIndex++));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(RecordFormat.HEADER_BYTES);
+        header.putInt(RecordFormat.FILE_MAGIC).putInt(RecordFormat.VERSION).flip();
+        channel.write(header);
+        files.addLast(file);
+        while (files.size() > maxFiles)
+            Files.deleteIfExists(files.removeFirst());
+    }
+
+    private void closeFile() {
+        if (channel == null)
+            return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Error closing transitions file: " + e.getMessage());
+        }
+        channel = null;
+    }
+
+    private static long indexOf(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(RecordFormat.FILE_PREFIX.length(),
+                    name.length() - RecordFormat.FILE_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
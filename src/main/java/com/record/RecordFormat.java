@@ -0,0 +1,43 @@
+package com.record;
+
+/**
+ * Layout constants for the on-disk transition files written by {@link GameRecorder}
+ * and read by {@link RecordReader}.
+ * <p>
+ * A file starts with an 8 byte header ({@link #FILE_MAGIC} followed by {@link #VERSION}).
+ * It is then a sequence of blocks. Each block is the {@link #BLOCK_MAGIC} int and the
+ * row count, followed by one deflate-compressed column for each field in this order:
+ * boards (8 bytes per row), moves (1 byte), rewards (4 bytes) and next boards (8 bytes).
+ * Every column is prefixed with its compressed length. All numbers are big-endian.
+ */
+final class RecordFormat {
+    static final int FILE_MAGIC = 0x47324B52; // "G2KR"
+    static final int VERSION = 1;
+    static final int BLOCK_MAGIC = 0x424C4B31; // "BLK1"
+    static final int HEADER_BYTES = 8;
+    static final int BLOCK_HEADER_BYTES = 8;
+    static final int BLOCK_ROWS = 4096; // Rows buffered in memory before a block is compressed
+    static final String FILE_PREFIX = "transitions-", FILE_SUFFIX = ".g2kr";
+
+    private RecordFormat() {}
+
+    /**
+     * Returns the file name used for the given rotation index.
+     *
+     * @param index The rotation index
+     * @return The file name
+     */
+    static String fileName(long index) {
+        return String.format("%s%06d%s", FILE_PREFIX, index, FILE_SUFFIX);
+    }
+
+    /**
+     * Returns whether the file name belongs to a transition file.
+     *
+     * @param name The file name
+     * @return True if the name matches the transition file pattern
+     */
+    static boolean isRecordFile(String name) {
+        return name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX);
+    }
+}
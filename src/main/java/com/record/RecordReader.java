@@ -0,0 +1,131 @@
+package com.record;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Scans transition files written by {@link GameRecorder}.
+ * <p>
+ * Files are memory-mapped and decompressed one block at a time into reusable column
+ * buffers, so scanning millions of rows does not allocate per row. A block that was only
+ * partly written (for example because the game was killed) ends the scan of that file. A
+ * block whose header or column sizes are out of range is reported as corrupt. Close the
+ * reader to free its native decompressor.
+ */
+public class RecordReader implements AutoCloseable {
+    /**
+     * Receives every transition in a scan.
+     */
+    @FunctionalInterface
+    public interface TransitionVisitor {
+        void visit(long board, int move, int reward, long nextBoard);
+    }
+
+    private final Inflater inflater = new Inflater();
+    private final ByteBuffer boards = ByteBuffer.allocate(RecordFormat.BLOCK_ROWS * Long.BYTES),
+            moves = ByteBuffer.allocate(RecordFormat.BLOCK_ROWS),
+            rewards = ByteBuffer.allocate(RecordFormat.BLOCK_ROWS * Integer.BYTES),
+            nextBoards = ByteBuffer.allocate(RecordFormat.BLOCK_ROWS * Long.BYTES);
+
+    /**
+     * Scans every transition file in a directory, oldest first.
+     *
+     * @param directory The directory written by a {@link GameRecorder}
+     * @param visitor   The visitor to call for each transition
+     * @return The number of transitions visited
+     * @throws IOException If a file cannot be read or is not a transition file
+     */
+    public long scanDirectory(Path directory, TransitionVisitor visitor) throws IOException {
+        long count = 0;
+        for (Path file : GameRecorder.listRecordFiles(directory))
+            count += scan(file, visitor);
+        return count;
+    }
+
+    /**
+     * Scans every transition in a single file.
+     *
+     * @param file    The transition file
+     * @param visitor The visitor to call for each transition
+     * @return The number of transitions visited
+     * @throws IOException If the file cannot be read or is not a transition file
+     */
+    public long scan(Path file, TransitionVisitor visitor) throws IOException {
+        MappedByteBuffer map;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (map.remaining() < RecordFormat.HEADER_BYTES || map.getInt() != RecordFormat.FILE_MAGIC)
+            throw new IOException("Not a transition file: " + file);
+        int version = map.getInt();
+        if (version != RecordFormat.VERSION)
+            throw new IOException("Unsupported transition file version " + version + ": " + file);
+
+        long count = 0;
+        while (map.remaining() >= RecordFormat.BLOCK_HEADER_BYTES) {
+            if (map.getInt() != RecordFormat.BLOCK_MAGIC)
+                throw new IOException("Corrupt block in " + file + " at " + (map.position() - Integer.BYTES));
+            int rows = map.getInt();
+            if (rows <= 0 || rows > RecordFormat.BLOCK_ROWS)
+                throw new IOException("Corrupt block in " + file + ": " + rows + " rows");
+            try {
+                if (!inflateColumn(map, boards, rows * Long.BYTES)
+                        || !inflateColumn(map, moves, rows)
+                        || !inflateColumn(map, rewards, rows * Integer.BYTES)
+                        || !inflateColumn(map, nextBoards, rows * Long.BYTES))
+                    break; // truncated final block
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupt column in " + file + ": " + e.getMessage(), e);
+            }
+            LongBuffer b = boards.asLongBuffer(), nb = nextBoards.asLongBuffer();
+            IntBuffer r = rewards.asIntBuffer();
+            for (int i = 0; i < rows; i++)
+                visitor.visit(b.get(i), moves.get(i), r.get(i), nb.get(i));
+            count += rows;
+        }
+        return count;
+    }
+
+    private boolean inflateColumn(MappedByteBuffer map, ByteBuffer column, int length) throws DataFormatException {
+        if (map.remaining() < Integer.BYTES)
+            return false;
+        int compressed = map.getInt();
+        if (compressed < 0)
+            throw new DataFormatException("negative column size " + compressed);
+        if (map.remaining() < compressed)
+            return false;
+        ByteBuffer input = map.slice(map.position(), compressed);
+        map.position(map.position() + compressed);
+
+        inflater.reset();
+        inflater.setInput(input);
+        column.clear().limit(length);
+        while (column.hasRemaining() && !inflater.finished()) {
+            if (inflater.inflate(column) == 0) {
+                // The recorder never sets a dictionary, and without one inflate would make no progress
+                if (inflater.needsDictionary())
+                    throw new DataFormatException("column needs a preset dictionary");
+                if (inflater.needsInput())
+                    return false;
+            }
+        }
+        column.flip();
+        return column.remaining() == length;
+    }
+
+    /**
+     * Frees the native memory of the decompressor. The reader cannot scan afterwards.
+     */
+    @Override
+    public void close() {
+        inflater.end();
+    }
+}
@@ -0,0 +1,25 @@
+package com.socket;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * What a server has sent to its clients since it started, counted across every client,
+ * including those that have since disconnected. The counters are {@link LongAdder}s, so the
+ * writer threads never contend on them and reading them never blocks a writer.
+ */
+public final class BroadcastStats {
+    final LongAdder framesSent = new LongAdder(); // States delivered, counted once per client
+    final LongAdder bytesSent = new LongAdder(); // Bytes written, framing and compression included
+    final LongAdder framesDropped = new LongAdder(); // States a slow client never got
+    final LongAdder framesCoalesced = new LongAdder(); // States sent in the same write as the one before
+
+    BroadcastStats() {}
+
+    public long getFramesSent() { return framesSent.sum(); }
+
+    public long getBytesSent() { return bytesSent.sum(); }
+
+    public long getFramesDropped() { return framesDropped.sum(); }
+
+    public long getFramesCoalesced() { return framesCoalesced.sum(); }
+}
@@ -0,0 +1,182 @@
+package com.socket;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * One spectator connected to the {@link GameStateServer}.
+ * <p>
+ * In the virtual thread mode each client has a bounded queue of encoded frames and its
+ * own writer loop on a virtual thread, so a broadcast only enqueues and a slow client
+ * only holds up itself. When the queue is full the oldest frame is dropped, since a
+ * spectator only needs the latest state. In the legacy mode frames are written straight
+ * to the socket by the broadcasting thread, except while the accepting thread is still
+ * writing the replay to a new client: broadcasts then leave their frames to be written
+ * after it, so the broadcasting thread never waits on a new client.
+ */
+class ClientConnection {
+    private final Socket socket;
+    private final BufferedWriter writer;
+    private final ArrayBlockingQueue<String> queue; // Frames waiting to be written; null in the legacy mode
+    private final BroadcastStats stats; // The server's totals, shared with its other clients
+    private List<String> heldFrames; // Broadcast during the legacy replay, written after it; guarded by this
+    private volatile Thread writerThread;
+    private volatile boolean closed;
+
+    /**
+     * @param socket        The accepted client socket
+     * @param queueCapacity The most frames to queue, or 0 to write frames directly
+     * @param stats         The server's totals to count this client's frames in
+     */
+    ClientConnection(Socket socket, int queueCapacity, BroadcastStats stats) throws IOException {
+        this.socket = socket;
+        this.stats = stats;
+        this.writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        this.queue = queueCapacity > 0 ? new ArrayBlockingQueue<>(queueCapacity) : null;
+    }
+
+    /**
+     * Starts the writer loop on a virtual thread.
+     *
+     * @param onClose Called once the connection has failed or been closed
+     */
+    void startWriter(Runnable onClose) {
+        writerThread = Thread.ofVirtual().name("game-client-" + socket.getPort()).start(() -> {
+            try {
+                writeLoop();
+            } finally {
+                close();
+                onClose.run();
+            }
+        });
+    }
+
+    private void writeLoop() {
+        try {
+            while (!closed) {
+                String frame = queue.take();
+                writer.write(frame);
+                long frames = 1, bytes = frame.length(); // The frames are ASCII JSON
+                // Write whatever else is waiting before paying for a flush
+                while ((frame = queue.poll()) != null) {
+                    writer.write(frame);
+                    frames++;
+                    bytes += frame.length();
+                }
+                writer.flush();
+                stats.framesSent.add(frames);
+                stats.framesCoalesced.add(frames - 1);
+                stats.bytesSent.add(bytes);
+            }
+        } catch (IOException e) {
+            if (!closed)
+                System.err.println("Removing disconnected client");
+        } catch (InterruptedException e) {
+            // Closed while waiting for a frame
+        }
+    }
+
+    /**
+     * Queues a frame for the writer loop, dropping the oldest queued frame if the queue is full.
+     *
+     * @param frame The encoded frame, including its trailing newline
+     * @return False if the connection is closed
+     */
+    boolean enqueue(String frame) {
+        if (closed)
+            return false;
+        while (!queue.offer(frame)) {
+            if (queue.poll() != null)
+                stats.framesDropped.increment();
+        }
+        return true;
+    }
+
+    /**
+     * Starts holding back broadcast frames in the legacy mode, until {@link #writeReplay}
+     * has written the replay and whatever was held.
+     */
+    synchronized void holdFrames() {
+        heldFrames = new ArrayList<>();
+    }
+
+    /**
+     * Writes the replay to a new client in the legacy mode, then the frames broadcast
+     * meanwhile, and stops holding frames back.
+     *
+     * @param replay The frames to send first
+     * @throws IOException If the client is gone
+     */
+    void writeReplay(List<String> replay) throws IOException {
+        List<String> frames = replay;
+        while (true) {
+            for (String frame : frames)
+                writeNow(frame);
+            synchronized (this) {
+                if (heldFrames.isEmpty()) {
+                    heldFrames = null;
+                    return;
+                }
+                frames = heldFrames;
+                heldFrames = new ArrayList<>();
+            }
+        }
+    }
+
+    /**
+     * Writes a frame on the calling thread, or leaves it for {@link #writeReplay} while the
+     * replay is being written.
+     *
+     * @param frame The encoded frame, including its trailing newline
+     * @throws IOException If the client is gone
+     */
+    void write(String frame) throws IOException {
+        synchronized (this) {
+            if (heldFrames != null) {
+                heldFrames.add(frame);
+                return;
+            }
+        }
+        writeNow(frame);
+    }
+
+    private void writeNow(String frame) throws IOException {
+        synchronized (writer) {
+            writer.write(frame);
+            writer.flush();
+        }
+        stats.framesSent.increment();
+        stats.bytesSent.add(frame.length());
+    }
+
+    /**
+     * Returns whether frames go through the queue and writer loop.
+     */
+    boolean isQueued() {
+        return queue != null;
+    }
+
+    void close() {
+        if (closed)
+            return;
+        closed = true;
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+        Thread thread = writerThread;
+        if (thread != null && thread != Thread.currentThread())
+            thread.interrupt();
+    }
+
+    int getQueueDepth() {
+        return queue == null ? 0 : queue.size();
+    }
+}
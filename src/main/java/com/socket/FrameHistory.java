@@ -0,0 +1,86 @@
+package com.socket;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A bounded ring of the most recently broadcast frames, already encoded.
+ * <p>
+ * The servers add to it on the broadcasting thread, so clients that connect later can be
+ * sent the current state, and optionally the states that led up to it, without anything
+ * being asked of the game thread or anything being encoded again. It also remembers the
+ * fingerprint of the newest state, so a state identical to it is never encoded or sent.
+ */
+class FrameHistory {
+    private final String[] frames;
+    private long count; // Frames added so far; the newest is at (count - 1) % capacity
+    private boolean offered; // Whether any state has been offered yet
+    private long lastFingerprint; // The fingerprint of the newest state offered
+    private long redundant; // States skipped because they matched the one before
+
+    /**
+     * @param capacity The most frames to keep
+     */
+    FrameHistory(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("History capacity must be positive: " + capacity);
+        this.frames = new String[capacity];
+    }
+
+    /**
+     * Records the fingerprint of a state about to be broadcast.
+     *
+     * @param fingerprint The state's fingerprint (see {@link com.state.GameState#getFingerprint()})
+     * @return True if it is the same as the state before it, which should then be skipped
+     */
+    synchronized boolean isRedundant(long fingerprint) {
+        if (offered && fingerprint == lastFingerprint) {
+            redundant++;
+            return true;
+        }
+        offered = true;
+        lastFingerprint = fingerprint;
+        return false;
+    }
+
+    /**
+     * Returns the number of states skipped by {@link #isRedundant}.
+     *
+     * @return The number of redundant states
+     */
+    synchronized long redundant() {
+        return redundant;
+    }
+
+    synchronized void add(String frame) {
+        frames[(int) (count++ % frames.length)] = frame;
+    }
+
+    /**
+     * Returns the newest frame.
+     *
+     * @return The frame, or null if nothing has been added yet
+     */
+    synchronized String latest() {
+        return count == 0 ? null : frames[(int) ((count - 1) % frames.length)];
+    }
+
+    /**
+     * Returns up to the given number of the newest frames, oldest first, so that the last
+     * one is the current state.
+     *
+     * @param max The most frames to return
+     * @return The frames, which may be fewer than asked for
+     */
+    synchronized List<String> recent(int max) {
+        int n = (int) Math.min(Math.min(max, count), frames.length);
+        List<String> recent = new ArrayList<>(n);
+        for (long i = count - n; i < count; i++)
+            recent.add(frames[(int) (i % frames.length)]);
+        return recent;
+    }
+
+    int capacity() {
+        return frames.length;
+    }
+}
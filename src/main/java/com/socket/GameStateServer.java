@@ -1,75 +1,245 @@
 package com.socket;
 
 import com.google.gson.Gson;
+import com.jfr.BroadcastEvent;
 import com.state.GameState;
 
 import java.io.*;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.charset.StandardCharsets;
 
+import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
+/**
+ * Streams the game state to spectators over TCP, one JSON object per line.
+ * <p>
+ * By default every client is served by its own virtual thread with a bounded queue of
+ * frames (see {@link ClientConnection}), so {@link #broadcastGameState} encodes the state
+ * once and only enqueues it. The legacy mode writes to every socket on the broadcasting
+ * thread instead, and is kept for comparison (see {@link GameStateServerBenchmark}).
+ * <p>
+ * The most recent frames are kept (see {@link FrameHistory}), so a client that connects
+ * mid-game is sent the current state straight away, optionally after a replay of the
+ * states before it (see {@link #setReplayFrames}).
+ */
 public class GameStateServer {
+    public static final int DEFAULT_QUEUE_CAPACITY = 64; // Frames a client may fall behind before old ones are dropped
+    public static final int HISTORY_FRAMES = 256; // The most frames that can be replayed to a new client
+
+    private final Gson gson = new Gson();
+    private final int queueCapacity; // 0 in the legacy mode
     private ServerSocket serverSocket;
-    private final CopyOnWriteArrayList<BufferedWriter> clients = new CopyOnWriteArrayList<>();
+    private final CopyOnWriteArrayList<ClientConnection> clients = new CopyOnWriteArrayList<>();
+    private final FrameHistory history = new FrameHistory(HISTORY_FRAMES);
+    private final BroadcastStats stats = new BroadcastStats();
+    private volatile int replayFrames; // Frames before the current one sent to new clients
     private volatile boolean running = true;
 
+    /**
+     * Creates a server that serves each client on its own virtual thread.
+     */
+    public GameStateServer() {
+        this(true, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param virtualThreads Whether to give each client a queue and a writer thread, rather
+     *                       than writing to every client on the broadcasting thread
+     * @param queueCapacity  The most frames queued per client in the virtual thread mode
+     */
+    public GameStateServer(boolean virtualThreads, int queueCapacity) {
+        if (virtualThreads && queueCapacity < 1)
+            throw new IllegalArgumentException("Queue capacity must be positive: " + queueCapacity);
+        this.queueCapacity = virtualThreads ? queueCapacity : 0;
+    }
+
     public void start(int port) {
         try {
             serverSocket = new ServerSocket(port);
-            System.out.println("Game server started on port " + port);
+            System.out.println("Game server started on port " + serverSocket.getLocalPort());
 
             // Start a thread to continuously accept clients
-            new Thread(() -> {
+            Thread.ofVirtual().name("game-server-accept").start(() -> {
                 while (running) {
                     try {
                         Socket clientSocket = serverSocket.accept();
                         System.out.println("Client connected: " + clientSocket.getInetAddress());
-
-                        BufferedWriter writer = new BufferedWriter(
-                                new OutputStreamWriter(clientSocket.getOutputStream(), "UTF-8")
-                        );
-                        clients.add(writer);
-                        // Send valid initial state instead of empty JSON
-                        GameState initialState = new GameState(
-                                0, 0, false, false, new int[4][4]  // Default empty board
-                        );
-                        writer.write(new Gson().toJson(initialState) + "\n");
-                        writer.flush();
+                        accept(clientSocket);
                     } catch (IOException e) {
                         if (running) System.err.println("Accept error: " + e.getMessage());
                     }
                 }
-            }).start();
+            });
         } catch (IOException e) {
             System.err.println("Error starting server: " + e.getMessage());
         }
     }
 
+    private void accept(Socket clientSocket) throws IOException {
+        ClientConnection client;
+        try {
+            client = new ClientConnection(clientSocket, queueCapacity, stats);
+        } catch (IOException e) {
+            clientSocket.close();
+            throw e;
+        }
+        // Send the current state (and any replay) instead of waiting for the next move.
+        // Locked against broadcasts, so the client gets every frame exactly once and in order
+        List<String> replay;
+        synchronized (history) {
+            replay = history.recent(replayFrames + 1);
+            if (client.isQueued()) {
+                for (String frame : replay)
+                    client.enqueue(frame);
+            } else {
+                // Broadcasts are held back for this client until the replay is written below
+                client.holdFrames();
+            }
+            clients.add(client);
+        }
+        if (client.isQueued()) {
+            client.startWriter(() -> clients.remove(client));
+            return;
+        }
+        // Written outside the lock, so a slow new client only delays itself
+        try {
+            client.writeReplay(replay);
+        } catch (IOException e) {
+            client.close();
+            clients.remove(client);
+            throw e;
+        }
+    }
+
+    /**
+     * Sets how many frames before the current one are replayed to clients when they connect.
+     * In the virtual thread mode at most the client's queue capacity arrives.
+     *
+     * @param frames The number of earlier frames to replay, 0 for just the current state
+     */
+    public void setReplayFrames(int frames) {
+        this.replayFrames = Math.max(0, Math.min(frames, HISTORY_FRAMES - 1));
+    }
+
+    /**
+     * Sends a state to every client, unless it is the same as the state before it.
+     *
+     * @param gameState The state to send
+     */
     public void broadcastGameState(GameState gameState) {
-        Gson gson = new Gson();
+        BroadcastEvent event = new BroadcastEvent();
+        event.begin();
+        if (history.isRedundant(gameState.getFingerprint())) {
+            if (event.shouldCommit()) {
+                event.skipped = true;
+                event.fingerprint = gameState.getFingerprint();
+                event.commit();
+            }
+            return;
+        }
         String json = gson.toJson(gameState) + "\n";
         // System.out.println("Broadcasting JSON: " + json);  // todo just for debugging
 
-        clients.removeIf(writer -> {
+        int delivered;
+        synchronized (history) {
+            history.add(json);
+            delivered = fanOut(json);
+        }
+        if (event.shouldCommit()) {
+            event.clients = delivered;
+            event.bytes = (long) json.getBytes(StandardCharsets.UTF_8).length * delivered;
+            event.fingerprint = gameState.getFingerprint();
+            event.commit();
+        }
+    }
+
+    /**
+     * Queues a frame for, or writes it to, every client.
+     *
+     * @return The number of clients the frame was queued for or written to
+     */
+    private int fanOut(String json) {
+        int delivered = 0;
+        for (ClientConnection client : clients) {
+            if (client.isQueued()) {
+                if (client.enqueue(json))
+                    delivered++;
+                continue;
+            }
             try {
-                writer.write(json);
-                writer.flush();
-                return false;
+                client.write(json);
+                delivered++;
             } catch (IOException e) {
                 System.err.println("Removing disconnected client");
-                return true;
+                client.close();
+                clients.remove(client);
             }
-        });
+        }
+        return delivered;
+    }
+
+    /**
+     * Returns the port the server is listening on, which is useful after starting on port 0.
+     *
+     * @return The local port, or -1 if the server is not started
+     */
+    public int getPort() {
+        return serverSocket == null ? -1 : serverSocket.getLocalPort();
+    }
+
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    /**
+     * Returns the frames dropped across all clients because they fell too far behind.
+     *
+     * @return The number of dropped frames
+     */
+    public long getDroppedFrames() {
+        return stats.getFramesDropped();
+    }
+
+    /**
+     * Returns the frames waiting to be written, across the connected clients.
+     *
+     * @return The number of queued frames
+     */
+    public int getQueuedFrames() {
+        int queued = 0;
+        for (ClientConnection client : clients)
+            queued += client.getQueueDepth();
+        return queued;
+    }
+
+    /**
+     * Returns what has been sent to clients since the server started.
+     *
+     * @return The server's totals
+     */
+    public BroadcastStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Returns the states that were not sent because they were the same as the state before.
+     *
+     * @return The number of redundant states
+     */
+    public long getRedundantFrames() {
+        return history.redundant();
     }
 
     public void stop() {
         running = false;
         try {
             serverSocket.close();
-            for (BufferedWriter writer : clients) {
-                writer.close();
+            for (ClientConnection client : clients) {
+                client.close();
             }
+            clients.clear();
             System.out.println("Server stopped");
         } catch (IOException e) {
             System.err.println("Error stopping server: " + e.getMessage());
@@ -0,0 +1,98 @@
+package com.socket;
+
+import com.state.GameState;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the legacy and virtual thread modes of {@link GameStateServer} on loopback.
+ * <p>
+ * For each client count, the clients connect and read on virtual threads, the server
+ * broadcasts a fixed number of states back to back, and the benchmark reports how long
+ * the broadcasting thread spent per state and how long it took until every client had
+ * the last one. Every client needs two file descriptors in this process, so raise
+ * {@code ulimit -n} before running with 10k clients.
+ * <p>
+ * Usage: {@code GameStateServerBenchmark [frames] [clientCount...]}, by default 1000
+ * frames to 1, 100 and 10000 clients.
+ */
+public class GameStateServerBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int frames = args.length >= 1 ? Integer.parseInt(args[0]) : 1000;
+        List<Integer> clientCounts = new ArrayList<>();
+        for (int i = 1; i < args.length; i++)
+            clientCounts.add(Integer.parseInt(args[i]));
+        if (clientCounts.isEmpty())
+            clientCounts = List.of(1, 100, 10_000);
+
+        List<String> results = new ArrayList<>();
+        for (int clients : clientCounts) {
+            for (boolean virtualThreads : new boolean[]{false, true})
+                results.add(run(virtualThreads, clients, frames));
+        }
+        System.out.println();
+        System.out.printf("%-8s %8s %16s %18s %10s%n", "mode", "clients", "broadcast us/fr", "last delivery ms", "dropped");
+        results.forEach(System.out::println);
+    }
+
+    private static String run(boolean virtualThreads, int clientCount, int frames) throws Exception {
+        GameStateServer server = new GameStateServer(virtualThreads, GameStateServer.DEFAULT_QUEUE_CAPACITY);
+        server.start(0);
+        String last = "{\"currentScore\":" + frames + ",";
+        CountDownLatch done = new CountDownLatch(clientCount);
+        List<Socket> sockets = new ArrayList<>(clientCount);
+        try {
+            for (int i = 0; i < clientCount; i++) {
+                Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+                sockets.add(socket);
+                Thread.ofVirtual().start(() -> read(socket, last, done));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (server.getClientCount() < clientCount && System.nanoTime() < deadline)
+                Thread.sleep(10);
+
+            int[][] board = new int[4][4];
+            long start = System.nanoTime(), broadcastNanos = 0;
+            for (int i = 1; i <= frames; i++) {
+                board[i % 4][(i / 4) % 4] = 2 << (i % 11);
+                long before = System.nanoTime();
+                server.broadcastGameState(new GameState(i, i, false, false, board));
+                broadcastNanos += System.nanoTime() - before;
+            }
+            boolean delivered = done.await(60, TimeUnit.SECONDS);
+            long elapsed = System.nanoTime() - start;
+            return String.format("%-8s %8d %16.1f %18s %10d", virtualThreads ? "virtual" : "legacy", clientCount,
+                    broadcastNanos / 1e3 / frames,
+                    delivered ? String.format("%.1f", elapsed / 1e6) : "timed out", server.getDroppedFrames());
+        } finally {
+            server.stop();
+            for (Socket socket : sockets)
+                socket.close();
+        }
+    }
+
+    private static void read(Socket socket, String last, CountDownLatch done) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(last)) {
+                    done.countDown();
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            // The benchmark closed the socket
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.socket;
+
+import com.state.GameState;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A load generator for {@link GameStateServer} that runs entirely on loopback.
+ * <p>
+ * It starts a server, opens the given number of client connections and broadcasts states
+ * at a fixed rate. Most clients read as fast as they can; a share of them are slow (they
+ * pause after every line) and a share are stalled (they never read), which is what real
+ * spectators on bad networks look like to the server. Every frame carries its sequence
+ * number in the score field, so a client can tell when the frame was due to be sent and
+ * measure the end-to-end fan-out latency from that time, including any time the
+ * broadcaster fell behind schedule.
+ * <p>
+ * The report gives latency percentiles for the fast clients, the delivered frame
+ * throughput, the frames dropped for clients that fell behind, and the heap used per
+ * connection (both ends of each connection live in this process). The process exits
+ * with status 1 when the 99th percentile latency is over the limit, so a release build can
+ * be gated on it.
+ * <p>
+ * Options: {@code --clients 1000 --slow 0.05 --stalled 0.01 --rate 60 --seconds 10
+ * --mode virtual|legacy --max-p99-ms 100}.
+ */
+public class SpectatorLoadTest {
+    private static final long SLOW_CLIENT_PAUSE_MS = 50; // Pause after each line; slower than most broadcast rates
+
+    private final int clients, rate, seconds;
+    private final double slowShare, stalledShare;
+    private final boolean virtualThreads;
+    private final double maxP99Millis;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder received = new LongAdder();
+    private long[] dueNanos; // When each frame was due to be broadcast, indexed by sequence number
+
+    private SpectatorLoadTest(String[] args) {
+        int clients = 1000, rate = 60, seconds = 10;
+        double slow = 0.05, stalled = 0.01, maxP99 = 100;
+        boolean virtual = true;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--clients" -> clients = Integer.parseInt(value);
+                case "--slow" -> slow = Double.parseDouble(value);
+                case "--stalled" -> stalled = Double.parseDouble(value);
+                case "--rate" -> rate = Integer.parseInt(value);
+                case "--seconds" -> seconds = Integer.parseInt(value);
+                case "--mode" -> virtual = !value.equals("legacy");
+                case "--max-p99-ms" -> maxP99 = Double.parseDouble(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        this.clients = clients;
+        this.rate = rate;
+        this.seconds = seconds;
+        this.slowShare = slow;
+        this.stalledShare = stalled;
+        this.virtualThreads = virtual;
+        this.maxP99Millis = maxP99;
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean passed = new SpectatorLoadTest(args).run();
+        System.exit(passed ? 0 : 1);
+    }
+
+    private boolean run() throws Exception {
+        int frames = rate * seconds;
+        dueNanos = new long[frames + 1];
+        int stalled = (int) Math.round(clients * stalledShare), slow = (int) Math.round(clients * slowShare);
+        int fast = clients - stalled - slow;
+
+        GameStateServer server = new GameStateServer(virtualThreads, GameStateServer.DEFAULT_QUEUE_CAPACITY);
+        server.start(0);
+        long heapBefore = usedHeap();
+        List<Socket> sockets = new ArrayList<>(clients);
+        try {
+            for (int i = 0; i < clients; i++) {
+                Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+                sockets.add(socket);
+                if (i < fast)
+                    Thread.ofVirtual().start(() -> read(socket, false));
+                else if (i < fast + slow)
+                    Thread.ofVirtual().start(() -> read(socket, true));
+                // Stalled clients are connected but never read
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (server.getClientCount() < clients && System.nanoTime() < deadline)
+                Thread.sleep(10);
+            long heapPerConnection = (usedHeap() - heapBefore) / Math.max(1, clients);
+
+            // Broadcast on a fixed schedule; a late broadcast is measured from when it was due
+            long period = TimeUnit.SECONDS.toNanos(1) / rate, start = System.nanoTime();
+            int[][] board = new int[4][4];
+            for (int seq = 1; seq <= frames; seq++) {
+                long due = start + seq * period;
+                dueNanos[seq] = due;
+                long wait = due - System.nanoTime();
+                if (wait > 0)
+                    LockSupport.parkNanos(wait);
+                board[seq % 4][(seq / 4) % 4] = 2 << (seq % 11);
+                server.broadcastGameState(new GameState(seq, seq, false, false, board));
+            }
+            // Let the fast clients catch up before reporting
+            Thread.sleep(Math.max(200, 4 * TimeUnit.NANOSECONDS.toMillis(period)));
+            double elapsed = (System.nanoTime() - start) / 1e9;
+
+            System.out.println();
+            System.out.printf("mode=%s clients=%d (fast=%d slow=%d stalled=%d) rate=%d/s frames=%d%n",
+                    virtualThreads ? "virtual" : "legacy", clients, fast, slow, stalled, rate, frames);
+            System.out.printf("latency ms: p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f (%d samples)%n",
+                    latency.percentile(0.50) / 1e6, latency.percentile(0.90) / 1e6, latency.percentile(0.99) / 1e6,
+                    latency.percentile(0.999) / 1e6, latency.max() / 1e6, latency.count());
+            System.out.printf("throughput: %.0f frames/s delivered, %d frames dropped%n",
+                    received.sum() / elapsed, server.getDroppedFrames());
+            System.out.printf("heap per connection: %d bytes%n", heapPerConnection);
+            double p99 = latency.percentile(0.99) / 1e6;
+            boolean passed = latency.count() > 0 && p99 <= maxP99Millis;
+            System.out.println(passed ? "PASS" : String.format("FAIL: p99 %.2f ms over the %.2f ms limit", p99, maxP99Millis));
+            return passed;
+        } finally {
+            server.stop();
+            for (Socket socket : sockets)
+                socket.close();
+        }
+    }
+
+    private void read(Socket socket, boolean slow) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                long now = System.nanoTime();
+                int seq = sequence(line);
+                received.increment();
+                if (slow) {
+                    Thread.sleep(SLOW_CLIENT_PAUSE_MS);
+                } else if (seq > 0 && seq < dueNanos.length) {
+                    latency.record(now - dueNanos[seq]);
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            // The test closed the socket
+        }
+    }
+
+    /**
+     * Reads the sequence number from the score field at the start of a frame.
+     */
+    private static int sequence(String line) {
+        int start = line.indexOf(':') + 1, seq = 0;
+        for (int i = start; i < line.length() && Character.isDigit(line.charAt(i)); i++)
+            seq = seq * 10 + (line.charAt(i) - '0');
+        return seq;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        Thread.sleep(100);
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * A lock-free latency histogram with log-linear buckets: every power of two is split into
+     * 16 buckets, so percentiles are accurate to within about 6%.
+     */
+    private static final class LatencyHistogram {
+        private static final int SUB_BUCKETS = 16;
+        private final AtomicLongArray buckets = new AtomicLongArray(64 * SUB_BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private volatile long max;
+
+        void record(long nanos) {
+            nanos = Math.max(1, nanos);
+            int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+            int sub = exponent < 4 ? (int) nanos : (int) (nanos >>> (exponent - 4)) & (SUB_BUCKETS - 1);
+            buckets.incrementAndGet(exponent * SUB_BUCKETS + sub);
+            count.increment();
+            if (nanos > max)
+                max = nanos;
+        }
+
+        long count() {
+            return count.sum();
+        }
+
+        long max() {
+            return max;
+        }
+
+        /**
+         * Returns the lower bound of the bucket holding the given quantile.
+         */
+        long percentile(double quantile) {
+            long target = (long) Math.ceil(quantile * count.sum()), seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= target && seen > 0) {
+                    int exponent = i / SUB_BUCKETS, sub = i % SUB_BUCKETS;
+                    return exponent < 4 ? sub : (1L << exponent) | ((long) sub << (exponent - 4));
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,453 @@
+package com.socket;
+
+import com.google.gson.Gson;
+import com.state.GameState;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.Deflater;
+
+/**
+ * Streams the game state to browsers over WebSocket (RFC 6455), one JSON text message per
+ * state, so dashboards can watch the game without a bridge to the TCP stream of
+ * {@link GameStateServer}.
+ * <p>
+ * All connections are handled by a single selector thread using JDK NIO. Broadcasts
+ * encode the state once and queue it for every client. When a client has not taken the
+ * previous states yet, the waiting ones are sent together as a single message of
+ * newline-separated JSON objects, the same framing as the TCP stream, and the oldest are
+ * dropped beyond {@link #MAX_PENDING}. Clients that offer the permessage-deflate
+ * extension (RFC 7692) get compressed messages, with the compression context kept
+ * between messages since consecutive states are very similar.
+ * <p>
+ * A new client is sent the current state as soon as it connects, followed by nothing
+ * else until the next move. It can ask for the states leading up to it as well with a
+ * {@code replay} query parameter, e.g. {@code ws://host:port/?replay=20}; the default comes
+ * from {@link #setReplayFrames}.
+ */
+public class WebSocketServer {
+    public static final int MAX_PENDING = 64; // States a client may fall behind before old ones are dropped
+    private static final String ACCEPT_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    private static final int MAX_HANDSHAKE_BYTES = 8192;
+    private static final int OP_TEXT = 0x1, OP_CLOSE = 0x8, OP_PING = 0x9, OP_PONG = 0xA;
+
+    private final Gson gson = new Gson();
+    private final CopyOnWriteArrayList<Client> clients = new CopyOnWriteArrayList<>();
+    private ServerSocketChannel serverChannel;
+    private Selector selector;
+    private final FrameHistory history = new FrameHistory(MAX_PENDING); // Recent states, sent to new clients
+    private final BroadcastStats stats = new BroadcastStats();
+    private volatile int replayFrames; // States before the current one sent to clients that don't ask
+    private volatile boolean running = true;
+
+    public void start(int port) {
+        try {
+            selector = Selector.open();
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(port));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+            System.out.println("WebSocket server started on port " + getPort());
+            Thread.ofPlatform().daemon().name("websocket-selector").start(this::selectLoop);
+        } catch (IOException e) {
+            System.err.println("Error starting WebSocket server: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Queues a state for every connected client, unless it is the same as the state before
+     * it. Never blocks on the network.
+     *
+     * @param gameState The state to send
+     */
+    public void broadcastGameState(GameState gameState) {
+        if (history.isRedundant(gameState.getFingerprint()))
+            return;
+        String json = gson.toJson(gameState);
+        // Locked against handshakes, so a new client gets every state exactly once
+        synchronized (history) {
+            history.add(json);
+            for (Client client : clients)
+                client.enqueue(json);
+        }
+        selector.wakeup();
+    }
+
+    /**
+     * Sets how many states before the current one are replayed to new clients that don't
+     * ask for a number themselves. At most the history's capacity arrives.
+     *
+     * @param frames The number of earlier states to replay, 0 for just the current state
+     */
+    public void setReplayFrames(int frames) {
+        this.replayFrames = Math.max(0, Math.min(frames, history.capacity() - 1));
+    }
+
+    /**
+     * Returns the port the server is listening on, which is useful after starting on port 0.
+     *
+     * @return The local port, or -1 if the server is not started
+     */
+    public int getPort() {
+        return serverChannel == null ? -1 : serverChannel.socket().getLocalPort();
+    }
+
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    /**
+     * Returns the states that were not sent because they were the same as the state before.
+     *
+     * @return The number of redundant states
+     */
+    public long getRedundantFrames() {
+        return history.redundant();
+    }
+
+    /**
+     * Returns what has been sent to clients since the server started.
+     *
+     * @return The server's totals
+     */
+    public BroadcastStats getStats() {
+        return stats;
+    }
+
+    public void stop() {
+        running = false;
+        try {
+            selector.wakeup();
+            serverChannel.close();
+            System.out.println("WebSocket server stopped");
+        } catch (IOException e) {
+            System.err.println("Error stopping WebSocket server: " + e.getMessage());
+        }
+    }
+
+    private void selectLoop() {
+        try (Selector selector = this.selector) {
+            while (running) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid())
+                        continue;
+                    try {
+                        if (key.isAcceptable())
+                            accept();
+                        else {
+                            Client client = (Client) key.attachment();
+                            if (key.isReadable())
+                                client.read();
+                            if (key.isValid() && key.isWritable())
+                                client.write();
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        // A misbehaving client only loses its own connection, never the selector thread
+                        if (key.attachment() instanceof Client client)
+                            client.close();
+                    }
+                }
+                // Send whatever has been broadcast since the last pass
+                for (Client client : clients) {
+                    try {
+                        client.flushPending();
+                    } catch (IOException | RuntimeException e) {
+                        client.close();
+                    }
+                }
+            }
+            for (Client client : clients)
+                client.close();
+        } catch (IOException e) {
+            System.err.println("WebSocket selector error: " + e.getMessage());
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null)
+            return;
+        channel.configureBlocking(false);
+        Client client = new Client(channel);
+        client.key = channel.register(selector, SelectionKey.OP_READ, client);
+    }
+
+    /**
+     * Returns the Sec-WebSocket-Accept value for a handshake key.
+     */
+    static String acceptKey(String key) {
+        try {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            byte[] digest = sha1.digest((key + ACCEPT_GUID).getBytes(StandardCharsets.ISO_8859_1));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+    }
+
+    /**
+     * One browser connection. Everything but {@link #enqueue} runs on the selector thread.
+     */
+    private final class Client {
+        private final SocketChannel channel;
+        private SelectionKey key;
+        private ByteBuffer in = ByteBuffer.allocate(1024);
+        private final ArrayDeque<ByteBuffer> out = new ArrayDeque<>(); // Encoded frames not yet written
+        private final ArrayDeque<String> pending = new ArrayDeque<>(); // States waiting to be framed; guarded by itself
+        private boolean open; // Whether the handshake has completed
+        private Deflater deflater; // Non-null if permessage-deflate was negotiated
+        private byte[] deflateBuffer;
+
+        Client(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void enqueue(String json) {
+            synchronized (pending) {
+                if (pending.size() == MAX_PENDING) {
+                    pending.removeFirst();
+                    stats.framesDropped.increment();
+                }
+                pending.addLast(json);
+            }
+        }
+
+        void read() throws IOException {
+            if (!in.hasRemaining())
+                in = ByteBuffer.allocate(in.capacity() * 2).put(in.flip());
+            if (channel.read(in) < 0) {
+                close();
+                return;
+            }
+            in.flip();
+            if (!open)
+                handshake();
+            while (open && readFrame()) {
+                // Keep handling complete frames
+            }
+            in.compact();
+        }
+
+        private void handshake() throws IOException {
+            String request = StandardCharsets.ISO_8859_1.decode(in.duplicate()).toString();
+            int end = request.indexOf("\r\n\r\n");
+            if (end < 0) {
+                if (in.remaining() > MAX_HANDSHAKE_BYTES)
+                    close();
+                return;
+            }
+            in.position(in.position() + end + 4);
+            String webSocketKey = null, extensions = "";
+            boolean upgrade = false;
+            String[] lines = request.substring(0, end).split("\r\n");
+            int replay = replayParameter(lines[0]);
+            for (String line : lines) {
+                int colon = line.indexOf(':');
+                if (colon < 0)
+                    continue;
+                String name = line.substring(0, colon).trim().toLowerCase(Locale.ROOT), value = line.substring(colon + 1).trim();
+                switch (name) {
+                    case "sec-websocket-key" -> webSocketKey = value;
+                    case "upgrade" -> upgrade = value.equalsIgnoreCase("websocket");
+                    case "sec-websocket-extensions" -> extensions += value + ",";
+                }
+            }
+            if (!upgrade || webSocketKey == null) {
+                out.add(ByteBuffer.wrap("HTTP/1.1 400 Bad Request\r\nConnection: close\r\n\r\n"
+                        .getBytes(StandardCharsets.ISO_8859_1)));
+                write();
+                close();
+                return;
+            }
+            StringBuilder response = new StringBuilder("HTTP/1.1 101 Switching Protocols\r\n")
+                    .append("Upgrade: websocket\r\nConnection: Upgrade\r\n")
+                    .append("Sec-WebSocket-Accept: ").append(acceptKey(webSocketKey)).append("\r\n");
+            if (extensions.toLowerCase(Locale.ROOT).contains("permessage-deflate")) {
+                // Only the server compresses; spectators send nothing but control frames
+                response.append("Sec-WebSocket-Extensions: permessage-deflate\r\n");
+                deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+                deflateBuffer = new byte[4096];
+            }
+            response.append("\r\n");
+            out.add(ByteBuffer.wrap(response.toString().getBytes(StandardCharsets.ISO_8859_1)));
+            write();
+            open = true;
+            synchronized (history) {
+                for (String json : history.recent(replay + 1))
+                    enqueue(json);
+                clients.add(this);
+            }
+        }
+
+        /**
+         * Reads the replay query parameter from the request line, e.g. {@code GET /?replay=20 HTTP/1.1}.
+         */
+        private int replayParameter(String requestLine) {
+            int start = requestLine.indexOf("replay=");
+            if (start < 0)
+                return replayFrames;
+            int value = 0;
+            for (int i = start + 7; i < requestLine.length() && Character.isDigit(requestLine.charAt(i)) && value < MAX_PENDING; i++)
+                value = value * 10 + (requestLine.charAt(i) - '0');
+            return value;
+        }
+
+        /**
+         * Handles one complete client frame if it has arrived. Only control frames are acted on;
+         * spectators have nothing to say.
+         *
+         * @return Whether a frame was consumed
+         */
+        private boolean readFrame() throws IOException {
+            if (in.remaining() < 2)
+                return false;
+            int start = in.position();
+            int b0 = in.get(start) & 0xFF, b1 = in.get(start + 1) & 0xFF;
+            int header = 2;
+            long length = b1 & 0x7F;
+            if (length == 126) {
+                if (in.remaining() < 4)
+                    return false;
+                length = in.getShort(start + 2) & 0xFFFF;
+                header = 4;
+            } else if (length == 127) {
+                if (in.remaining() < 10)
+                    return false;
+                length = in.getLong(start + 2);
+                header = 10;
+            }
+            boolean masked = (b1 & 0x80) != 0;
+            if (masked)
+                header += 4;
+            // A 64-bit length must have its top bit clear (RFC 6455 5.2), which also rules out a negative one
+            if (length < 0 || length > MAX_HANDSHAKE_BYTES) {
+                close();
+                return false;
+            }
+            if (in.remaining() < header + length)
+                return false;
+            byte[] payload = new byte[(int) length];
+            for (int i = 0; i < length; i++) {
+                byte b = in.get(start + header + i);
+                payload[i] = masked ? (byte) (b ^ in.get(start + header - 4 + (i & 3))) : b;
+            }
+            in.position(start + header + (int) length);
+            switch (b0 & 0x0F) {
+                case OP_PING -> {
+                    out.add(frame(OP_PONG, payload, false));
+                    write();
+                }
+                case OP_CLOSE -> {
+                    out.add(frame(OP_CLOSE, payload, false));
+                    write();
+                    close();
+                    return false;
+                }
+                default -> {
+                    // Text, binary, continuation and pong frames are ignored
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Frames the states waiting for this client, once everything before them has been
+         * written. Several waiting states become one newline-separated message.
+         */
+        void flushPending() throws IOException {
+            if (!open || !out.isEmpty())
+                return;
+            List<String> states = new ArrayList<>();
+            synchronized (pending) {
+                states.addAll(pending);
+                pending.clear();
+            }
+            if (states.isEmpty())
+                return;
+            stats.framesSent.add(states.size());
+            stats.framesCoalesced.add(states.size() - 1);
+            byte[] message = String.join("\n", states).getBytes(StandardCharsets.UTF_8);
+            out.add(deflater == null ? frame(OP_TEXT, message, false) : frame(OP_TEXT, deflate(message), true));
+            write();
+        }
+
+        void write() throws IOException {
+            while (!out.isEmpty()) {
+                ByteBuffer buffer = out.peekFirst();
+                stats.bytesSent.add(channel.write(buffer));
+                if (buffer.hasRemaining())
+                    break;
+                out.removeFirst();
+            }
+            if (key != null && key.isValid())
+                key.interestOps(out.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+
+        /**
+         * Compresses a message for permessage-deflate: a sync flush, without the trailing
+         * empty block marker 00 00 FF FF.
+         */
+        private byte[] deflate(byte[] message) {
+            deflater.setInput(message);
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(message.length / 2 + 16);
+            int n;
+            do {
+                n = deflater.deflate(deflateBuffer, 0, deflateBuffer.length, Deflater.SYNC_FLUSH);
+                compressed.write(deflateBuffer, 0, n);
+            } while (n == deflateBuffer.length);
+            byte[] bytes = compressed.toByteArray();
+            return Arrays.copyOf(bytes, bytes.length - 4);
+        }
+
+        void close() {
+            clients.remove(this);
+            if (deflater != null)
+                deflater.end();
+            deflater = null;
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+
+    /**
+     * Builds an unmasked server frame.
+     */
+    private static ByteBuffer frame(int opcode, byte[] payload, boolean compressed) {
+        int length = payload.length;
+        int header = length < 126 ? 2 : length < 65536 ? 4 : 10;
+        ByteBuffer frame = ByteBuffer.allocate(header + length);
+        frame.put((byte) (0x80 | (compressed ? 0x40 : 0) | opcode));
+        if (length < 126) {
+            frame.put((byte) length);
+        } else if (length < 65536) {
+            frame.put((byte) 126).putShort((short) length);
+        } else {
+            frame.put((byte) 127).putLong(length);
+        }
+        return frame.put(payload).flip();
+    }
+}
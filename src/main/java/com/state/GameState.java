@@ -3,8 +3,7 @@ package com.state;
 import com.google.gson.annotations.SerializedName;
 
 import java.util.Arrays;
-
-import static com._2048.Game.BOARD_SIZE;
+import java.util.Objects;
 
 public class GameState {
     @SerializedName("currentScore")
@@ -22,32 +21,93 @@ public class GameState {
     @SerializedName("boardState")
     private int[][] boardState;
 
+    @SerializedName("maxTile")
+    private int maxTile;
+
+    @SerializedName("emptyCells")
+    private int emptyCells;
+
+    // Not sent to clients; lets the servers skip a state identical to the one before it
+    private transient long fingerprint;
+
     public GameState(int currentScore, int bestScore, boolean gameOver, boolean gameWon, int[][] boardState) {
+        this(currentScore, bestScore, gameOver, gameWon, boardState, 0, 0, 0);
+        updateBoard(boardState);
+    }
+
+    /**
+     * Creates a state from values the caller already keeps track of, such as a
+     * {@link com._2048.GameEngine}, so nothing has to be worked out from the board.
+     *
+     * @param maxTile     The largest tile on the board
+     * @param emptyCells  The number of empty cells on the board
+     * @param fingerprint A 64-bit fingerprint of the other fields (see
+     *                    {@link com._2048.GameEngine#getFingerprint()})
+     */
+    public GameState(int currentScore, int bestScore, boolean gameOver, boolean gameWon, int[][] boardState,
+                     int maxTile, int emptyCells, long fingerprint) {
         this.currentScore = currentScore;
         this.bestScore = bestScore;
         this.gameOver = gameOver;
         this.gameWon = gameWon;
         this.boardState = boardState;
+        this.maxTile = maxTile;
+        this.emptyCells = emptyCells;
+        this.fingerprint = fingerprint;
     }
 
     public int getCurrentScore() {
         return currentScore;
     }
-    public void setCurrentScore(int currentScore) { this.currentScore = currentScore; }
+    public void setCurrentScore(int currentScore) { this.currentScore = currentScore; this.fingerprint = contentFingerprint(); }
     public int getBestScore() {
         return bestScore;
     }
-    public void setBestScore(int bestScore) { this.bestScore = bestScore; }
+    public void setBestScore(int bestScore) { this.bestScore = bestScore; this.fingerprint = contentFingerprint(); }
     public boolean isGameOver() {
         return gameOver;
     }
-    public void setGameOver(boolean gameOver) { this.gameOver = gameOver; }
+    public void setGameOver(boolean gameOver) { this.gameOver = gameOver; this.fingerprint = contentFingerprint(); }
     public boolean isGameWon() { return gameWon; }
-    public void setGameWon(boolean gameWon) { this.gameWon = gameWon; }
+    public void setGameWon(boolean gameWon) { this.gameWon = gameWon; this.fingerprint = contentFingerprint(); }
     public int[][] getBoardState() {
         return boardState;
     }
-    public void setBoardState(int[][] boardState) { this.boardState = boardState; }
+    public void setBoardState(int[][] boardState) { updateBoard(boardState); }
+    public int getMaxTile() { return maxTile; }
+    public int getEmptyCells() { return emptyCells; }
+    public long getFingerprint() { return fingerprint; }
+
+    /**
+     * Replaces the board and works out everything derived from it.
+     */
+    private void updateBoard(int[][] boardState) {
+        this.boardState = boardState;
+        this.maxTile = 0;
+        this.emptyCells = 0;
+        if (boardState != null) {
+            for (int[] row : boardState) {
+                for (int value : row) {
+                    this.maxTile = Math.max(this.maxTile, value);
+                    if (value == 0)
+                        this.emptyCells++;
+                }
+            }
+        }
+        this.fingerprint = contentFingerprint();
+    }
+
+    /**
+     * Hashes the fields sent to clients, for states that were not given a fingerprint.
+     */
+    private long contentFingerprint() {
+        long h = ((long) currentScore << 32 | (bestScore & 0xFFFFFFFFL)) * 31 + (gameOver ? 2 : 0) + (gameWon ? 1 : 0);
+        if (boardState != null)
+            for (int[] row : boardState)
+                for (int value : row)
+                    h = h * 0x100000001B3L + value;
+        return h;
+    }
 
     @Override
     public String toString() {
@@ -61,14 +121,16 @@ public class GameState {
 
     @Override
     public boolean equals(Object object) {
-        if (object instanceof GameState gameState) {
-            for (int i = 0; i < BOARD_SIZE; i++) {
-                for (int j = 0; j < BOARD_SIZE; j++) {
-                    if (this.boardState[i][j] != gameState.getBoardState()[i][j])
-                        return false;
-                }
-            }
-        }
-        return true;
+        return object instanceof GameState gameState
+                && this.currentScore == gameState.currentScore
+                && this.bestScore == gameState.bestScore
+                && this.gameOver == gameState.gameOver
+                && this.gameWon == gameState.gameWon
+                && Arrays.deepEquals(this.boardState, gameState.boardState);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(currentScore, bestScore, gameOver, gameWon) * 31 + Arrays.deepHashCode(boardState);
     }
 }
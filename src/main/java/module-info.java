@@ -1,20 +1,20 @@
 module com.chrisdeforest._2048 {
     requires javafx.controls;
     requires javafx.fxml;
-    requires javafx.web;
 
-    requires org.controlsfx.controls;
-    requires com.dlsc.formsfx;
-    requires net.synedra.validatorfx;
-    requires org.kordamp.ikonli.javafx;
-    requires org.kordamp.bootstrapfx.core;
-    requires eu.hansolo.tilesfx;
-    requires com.almasb.fxgl.all;
     requires java.desktop;
-    requires annotations;
+    // Only @NotNull, which is not kept at runtime
+    requires static org.jetbrains.annotations;
     requires com.google.gson;
+    requires jdk.httpserver;
+    requires java.management;
+    requires jdk.management;
+    requires jdk.jfr;
+    // Optional: BatchEngine falls back to scalar moves unless run with --add-modules jdk.incubator.vector
+    requires static jdk.incubator.vector;
 
     opens com._2048 to javafx.fxml;
     opens com.state to com.google.gson;
     exports com._2048;
+    exports com.env;
 }
\ No newline at end of file
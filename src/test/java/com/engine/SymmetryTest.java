@@ -0,0 +1,119 @@
+package com.engine;
+
+import com._2048.Game;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the symmetries of packed boards against the moves of {@link Game}.
+ */
+class SymmetryTest {
+    private static final String[] DIRECTIONS = {"up", "right", "down", "left"}; // Indexed by move code
+    private static final int BOARDS = 2000;
+
+    @Test
+    void mirrorsAndTransposeMatchTheGameMoves() {
+        Random rand = new Random(2048);
+        for (int n = 0; n < BOARDS; n++) {
+            long board = randomBoard(rand);
+            // Mirroring the columns swaps left and right, mirroring the rows swaps up and down
+            assertEquals(Symmetry.mirrorColumns(move(Symmetry.mirrorColumns(board), Board.LEFT)),
+                    move(board, Board.RIGHT), hex(board));
+            assertEquals(Symmetry.mirrorRows(move(Symmetry.mirrorRows(board), Board.UP)),
+                    move(board, Board.DOWN), hex(board));
+            // Transposing swaps rows and columns, so a vertical move becomes a horizontal one
+            assertEquals(Moves.transpose(move(Moves.transpose(board), Board.LEFT)), move(board, Board.UP), hex(board));
+            assertEquals(Moves.transpose(move(Moves.transpose(board), Board.RIGHT)), move(board, Board.DOWN),
+                    hex(board));
+        }
+    }
+
+    @Test
+    void mirrorsAndTransposeAreTheirOwnInverses() {
+        Random rand = new Random(2049);
+        for (int n = 0; n < BOARDS; n++) {
+            long board = randomBoard(rand);
+            assertEquals(board, Symmetry.mirrorColumns(Symmetry.mirrorColumns(board)), hex(board));
+            assertEquals(board, Symmetry.mirrorRows(Symmetry.mirrorRows(board)), hex(board));
+            assertEquals(board, Moves.transpose(Moves.transpose(board)), hex(board));
+        }
+    }
+
+    @Test
+    void inverseUndoesEverySymmetry() {
+        Random rand = new Random(2050);
+        for (int n = 0; n < BOARDS; n++) {
+            long board = randomBoard(rand);
+            for (int symmetry = 0; symmetry < 8; symmetry++)
+                assertEquals(board, Symmetry.apply(Symmetry.apply(board, symmetry), Symmetry.inverse(symmetry)),
+                        hex(board) + " under symmetry " + symmetry);
+        }
+    }
+
+    @Test
+    void mappedMovesMatchTheGameMovesUnderEverySymmetry() {
+        Random rand = new Random(2051);
+        for (int n = 0; n < BOARDS; n++) {
+            long board = randomBoard(rand);
+            for (int symmetry = 0; symmetry < 8; symmetry++) {
+                long image = Symmetry.apply(board, symmetry);
+                for (int direction = Board.UP; direction <= Board.LEFT; direction++)
+                    assertEquals(Symmetry.apply(move(board, direction), symmetry),
+                            move(image, Symmetry.mapMove(direction, symmetry)),
+                            hex(board) + " moved " + DIRECTIONS[direction] + " under symmetry " + symmetry);
+            }
+        }
+    }
+
+    @Test
+    void cellsAndCanonicalBoardsFollowTheSymmetries() {
+        Random rand = new Random(2052);
+        for (int n = 0; n < BOARDS; n++) {
+            long board = randomBoard(rand), canonical = Symmetry.canonical(board);
+            assertEquals(canonical, Symmetry.apply(board, Symmetry.canonicalSymmetry(board)), hex(board));
+            for (int symmetry = 0; symmetry < 8; symmetry++) {
+                long image = Symmetry.apply(board, symmetry);
+                assertEquals(canonical, Symmetry.canonical(image), hex(board) + " under symmetry " + symmetry);
+                for (int cell = 0; cell < Board.CELLS; cell++)
+                    assertEquals(Board.exponent(board, cell), Board.exponent(image, Symmetry.mapCell(cell, symmetry)),
+                            hex(board) + " cell " + cell + " under symmetry " + symmetry);
+            }
+        }
+    }
+
+    /**
+     * Makes a move with {@link Game#moveVertical} or {@link Game#moveHorizontal} on a game
+     * holding the given board, without a new tile.
+     */
+    private static long move(long board, int direction) {
+        Game game = new Game();
+        int[][] values = Board.unpack(board);
+        for (int row = 0; row < Board.SIZE; row++)
+            for (int col = 0; col < Board.SIZE; col++)
+                game.getBoard()[row][col].setValue(values[row][col]);
+        if (direction == Board.UP || direction == Board.DOWN)
+            game.moveVertical(0, DIRECTIONS[direction]);
+        else
+            game.moveHorizontal(0, DIRECTIONS[direction]);
+        return game.getPackedBoard();
+    }
+
+    /**
+     * Returns a board with about two thirds of its cells holding tiles from 2 to 32, so that
+     * most moves slide and merge.
+     */
+    private static long randomBoard(Random rand) {
+        long board = 0;
+        for (int cell = 0; cell < Board.CELLS; cell++)
+            if (rand.nextInt(3) != 0)
+                board |= (long) rand.nextInt(1, 6) << (cell << 2);
+        return board;
+    }
+
+    private static String hex(long board) {
+        return Long.toHexString(board);
+    }
+}